@@ -0,0 +1,86 @@
+package org.lean.viewer.swt;
+
+import org.apache.hop.core.HopEnvironment;
+import org.apache.hop.core.logging.ILoggingObject;
+import org.apache.hop.core.logging.LoggingObjectType;
+import org.apache.hop.core.logging.SimpleLoggingObject;
+import org.apache.hop.metadata.api.IHopMetadataProvider;
+import org.apache.hop.metadata.serializer.memory.MemoryMetadataProvider;
+import org.lean.core.LeanEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The presentations the benchmarks render: a grid dashboard with the given number of labels linking to a few
+ * label presentations, generated in memory like the ones of {@link TestViewer}.
+ */
+public class BenchmarkPresentations {
+
+  public static final String DASHBOARD_NAME = "Dashboard";
+  public static final int COLUMNS = 8;
+
+  private static boolean initialized;
+
+  private final ILoggingObject loggingObject;
+  private final IHopMetadataProvider metadataProvider;
+  private final List<String> presentationNames;
+
+  public BenchmarkPresentations( int componentCount, int presentationCount ) throws Exception {
+    this( componentCount, presentationCount, 1 );
+  }
+
+  /**
+   * @param componentCount    The number of labels on every page of the dashboard
+   * @param presentationCount The number of presentations the dashboard links to
+   * @param pageCount         The number of pages of the dashboard
+   * @throws Exception In case the environment can't be initialized or the presentations can't be generated
+   */
+  public BenchmarkPresentations( int componentCount, int presentationCount, int pageCount ) throws Exception {
+    init();
+    loggingObject = new SimpleLoggingObject( "LPV benchmark", LoggingObjectType.GENERAL, null );
+    metadataProvider = new MemoryMetadataProvider();
+    presentationNames = new ArrayList<>();
+    for ( int i = 0; i < presentationCount; i++ ) {
+      String presentationName = "Presentation " + i;
+      TestViewer.generateLabelPresentation( metadataProvider, DASHBOARD_NAME, presentationName );
+      presentationNames.add( presentationName );
+    }
+    TestViewer.generateGridDashboard( metadataProvider, DASHBOARD_NAME, presentationNames, componentCount, COLUMNS, pageCount );
+  }
+
+  private static synchronized void init() throws Exception {
+    if ( !initialized ) {
+      LeanEnvironment.init();
+      HopEnvironment.init();
+      initialized = true;
+    }
+  }
+
+  /**
+   * Gets loggingObject
+   *
+   * @return value of loggingObject
+   */
+  public ILoggingObject getLoggingObject() {
+    return loggingObject;
+  }
+
+  /**
+   * Gets metadataProvider
+   *
+   * @return value of metadataProvider
+   */
+  public IHopMetadataProvider getMetadataProvider() {
+    return metadataProvider;
+  }
+
+  /**
+   * Gets presentationNames
+   *
+   * @return value of presentationNames
+   */
+  public List<String> getPresentationNames() {
+    return presentationNames;
+  }
+}
@@ -0,0 +1,100 @@
+package org.lean.viewer.swt;
+
+import org.eclipse.swt.graphics.DeviceData;
+import org.eclipse.swt.widgets.Display;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A display running its event loop on a thread of its own.
+ * Benchmark threads come and go so they can't own the display: they hand their SWT work to the display thread instead.
+ * On Linux without a screen run the benchmarks under Xvfb, for example with xvfb-run.
+ */
+public class HeadlessDisplay {
+
+  private final Thread thread;
+  private Display display;
+  private volatile boolean running;
+
+  public HeadlessDisplay() throws InterruptedException {
+    this( false );
+  }
+
+  /**
+   * @param tracking true to track the graphics objects allocated on the display, see {@link #getGraphicsObjectCount()}
+   * @throws InterruptedException In case we're interrupted waiting for the display to start
+   */
+  public HeadlessDisplay( boolean tracking ) throws InterruptedException {
+    CountDownLatch started = new CountDownLatch( 1 );
+    running = true;
+    thread = new Thread( () -> {
+      DeviceData data = new DeviceData();
+      data.tracking = tracking;
+      display = new Display( data );
+      started.countDown();
+      while ( running ) {
+        if ( !display.readAndDispatch() ) {
+          display.sleep();
+        }
+      }
+      display.dispose();
+    }, "lean-benchmark-display" );
+    thread.setDaemon( true );
+    thread.start();
+    started.await();
+  }
+
+  /**
+   * Run the given work on the display thread and wait for the result.
+   *
+   * @param callable The work to do
+   * @param <T>      The type of the result
+   * @return The result of the work
+   * @throws Exception The exception thrown by the work, if any
+   */
+  public <T> T call( Callable<T> callable ) throws Exception {
+    AtomicReference<T> result = new AtomicReference<>();
+    AtomicReference<Exception> error = new AtomicReference<>();
+    display.syncExec( () -> {
+      try {
+        result.set( callable.call() );
+      } catch ( Exception e ) {
+        error.set( e );
+      }
+    } );
+    if ( error.get() != null ) {
+      throw error.get();
+    }
+    return result.get();
+  }
+
+  /**
+   * Stop the event loop and dispose the display.
+   *
+   * @throws InterruptedException In case we're interrupted waiting for the display thread
+   */
+  public void dispose() throws InterruptedException {
+    running = false;
+    display.wake();
+    thread.join();
+  }
+
+  /**
+   * @return The number of live graphics objects on the display or -1 if they're not tracked
+   */
+  public int getGraphicsObjectCount() {
+    DeviceData data = display.getDeviceData();
+    return data.tracking ? data.objects.length : -1;
+  }
+
+  /**
+   * Gets display
+   *
+   * @return value of display
+   */
+  public Display getDisplay() {
+    return display;
+  }
+}
@@ -0,0 +1,378 @@
+package org.lean.viewer.swt;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.logging.ILoggingObject;
+import org.apache.hop.core.variables.Variables;
+import org.apache.hop.metadata.api.IHopMetadataProvider;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.FillLayout;
+import org.eclipse.swt.widgets.Canvas;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Shell;
+import org.lean.core.LeanGeometry;
+import org.lean.core.draw.DrawnItem;
+import org.lean.core.exception.LeanException;
+import org.lean.presentation.LeanPresentation;
+import org.lean.presentation.variable.LeanParameter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+
+/**
+ * Replays a long analyst session against a viewer on a headless display: hover over a few items, click a label of the
+ * dashboard to open its presentation, double-click the link back to the dashboard, and so on for thousands of
+ * navigations. It reports the click-to-paint latency percentiles, the growth of the heap and of the native graphics
+ * resources, and exits with status 1 when one of them exceeds its threshold.
+ * The options are given as name=value arguments, see {@link #main(String[])}. Run it from the benchmarks jar under
+ * Xvfb on a machine without a screen:
+ * <pre>
+ * xvfb-run java -cp target/benchmarks.jar org.lean.viewer.swt.NavigationLoadTest navigations=5000 delayMs=50
+ * </pre>
+ */
+public class NavigationLoadTest {
+
+  private static final long NAVIGATION_TIMEOUT_SECONDS = 60;
+
+  private final int componentCount;
+  private final int pageCount;
+  private final int fanOut;
+  private final int delayMs;
+  private final int navigations;
+  private final int warmUpNavigations;
+  private final int hoversPerNavigation;
+  private final long maxP99Ms;
+  private final long maxHeapGrowthMb;
+  private final int maxHandleGrowth;
+
+  private HeadlessDisplay display;
+  private Shell shell;
+  private LeanPresentationViewer viewer;
+  private Canvas canvas;
+
+  // Waiting for the first paint of another page, set and read on the display thread
+  //
+  private RenderedPage previousPage;
+  private CountDownLatch painted;
+  private volatile long paintedNanos;
+
+  /**
+   * A renderer which takes longer to lay out a presentation, like a component reading from a slow data source would
+   */
+  public static class DelayedPresentationRenderer extends PresentationRenderer {
+
+    private final int delayMs;
+
+    public DelayedPresentationRenderer( ILoggingObject loggingObject, IHopMetadataProvider metadataProvider, int delayMs ) {
+      super( loggingObject, metadataProvider );
+      this.delayMs = delayMs;
+    }
+
+    @Override public RenderedPresentation renderPages( LeanPresentation presentation, List<LeanParameter> parameters ) throws HopException, LeanException {
+      if ( delayMs > 0 ) {
+        try {
+          Thread.sleep( delayMs );
+        } catch ( InterruptedException e ) {
+          Thread.currentThread().interrupt();
+          throw new HopException( "Interrupted while waiting for the data of presentation " + presentation.getName(), e );
+        }
+      }
+      return super.renderPages( presentation, parameters );
+    }
+  }
+
+  public NavigationLoadTest( int componentCount, int pageCount, int fanOut, int delayMs, int navigations, int warmUpNavigations, int hoversPerNavigation,
+                             long maxP99Ms, long maxHeapGrowthMb, int maxHandleGrowth ) {
+    this.componentCount = componentCount;
+    this.pageCount = pageCount;
+    this.fanOut = fanOut;
+    this.delayMs = delayMs;
+    this.navigations = navigations;
+    this.warmUpNavigations = warmUpNavigations;
+    this.hoversPerNavigation = hoversPerNavigation;
+    this.maxP99Ms = maxP99Ms;
+    this.maxHeapGrowthMb = maxHeapGrowthMb;
+    this.maxHandleGrowth = maxHandleGrowth;
+  }
+
+  /**
+   * Options, with their defaults: components=200 (labels per dashboard page), pages=1 (dashboard pages), fanOut=10
+   * (presentations the dashboard links to), delayMs=20 (synthetic data source delay per render), navigations=2000,
+   * warmUp=100 (navigations before measuring), hovers=5 (mouse moves per navigation), maxP99Ms=1000,
+   * maxHeapGrowthMb=64 and maxHandleGrowth=50.
+   *
+   * @param args The options as name=value
+   */
+  public static void main( String[] args ) {
+    try {
+      NavigationLoadTest test = new NavigationLoadTest(
+        getOption( args, "components", 200 ),
+        getOption( args, "pages", 1 ),
+        getOption( args, "fanOut", 10 ),
+        getOption( args, "delayMs", 20 ),
+        getOption( args, "navigations", 2000 ),
+        getOption( args, "warmUp", 100 ),
+        getOption( args, "hovers", 5 ),
+        getOption( args, "maxP99Ms", 1000 ),
+        getOption( args, "maxHeapGrowthMb", 64 ),
+        getOption( args, "maxHandleGrowth", 50 )
+      );
+      System.exit( test.run() ? 0 : 1 );
+    } catch ( Exception e ) {
+      System.err.println( "Error running the navigation load test: " + e.getMessage() );
+      e.printStackTrace();
+      System.exit( 1 );
+    }
+  }
+
+  private static int getOption( String[] args, String name, int defaultValue ) {
+    for ( String arg : args ) {
+      if ( arg.startsWith( name + "=" ) ) {
+        return Integer.parseInt( arg.substring( name.length() + 1 ) );
+      }
+    }
+    return defaultValue;
+  }
+
+  /**
+   * Run the session and report the results on standard out
+   *
+   * @return true if all measurements are within their thresholds
+   * @throws Exception In case the viewer can't be set up
+   */
+  public boolean run() throws Exception {
+    BenchmarkPresentations presentations = new BenchmarkPresentations( componentCount, fanOut, pageCount );
+    PresentationRenderer renderer = new DelayedPresentationRenderer( presentations.getLoggingObject(), presentations.getMetadataProvider(), delayMs );
+    PresentationRenderService renderService = new PresentationRenderService( renderer, PresentationRenderService.createExecutor( 2 ),
+      PresentationRenderService.createBackgroundExecutor( PresentationRenderService.DEFAULT_MAX_SPECULATIVE_RENDERS ),
+      PresentationRenderService.createTileExecutor( 2 ) );
+
+    display = new HeadlessDisplay( true );
+    try {
+      CountDownLatch started = display.call( () -> {
+        shell = new Shell( display.getDisplay() );
+        shell.setLayout( new FillLayout() );
+        viewer = new LeanPresentationViewer( shell, presentations.getLoggingObject(), Variables.getADefaultVariableSpace(),
+          presentations.getMetadataProvider(), BenchmarkPresentations.DASHBOARD_NAME, null, renderService );
+        viewer.setZoomMode( ZoomMode.FIT_PAGE );
+        canvas = viewer.getwCanvas();
+        canvas.addPaintListener( e -> pagePainted() );
+        shell.setSize( 794, 1123 );
+        shell.open();
+        return expectPaint();
+      } );
+      if ( !started.await( NAVIGATION_TIMEOUT_SECONDS, TimeUnit.SECONDS ) ) {
+        throw new IllegalStateException( "The dashboard wasn't shown within " + NAVIGATION_TIMEOUT_SECONDS + " seconds" );
+      }
+
+      RollingTimings clickToPaint = new RollingTimings( navigations );
+      RollingTimings hover = new RollingTimings( navigations * Math.max( 1, hoversPerNavigation ) );
+      Random random = new Random( 42 );
+      long baselineHeap = 0;
+      int baselineHandles = 0;
+      int baselineObjects = 0;
+      int timeouts = 0;
+      for ( int navigation = 0; navigation < warmUpNavigations + navigations; navigation++ ) {
+        if ( navigation == warmUpNavigations ) {
+          baselineHeap = getUsedHeap();
+          baselineHandles = display.call( () -> viewer.getResources().getHandleCount() );
+          baselineObjects = display.call( display::getGraphicsObjectCount );
+        }
+        boolean measured = navigation >= warmUpNavigations;
+
+        for ( int i = 0; i < hoversPerNavigation; i++ ) {
+          long duration = display.call( () -> hover( random ) );
+          if ( measured && duration >= 0 ) {
+            hover.add( duration );
+          }
+        }
+
+        long latency = navigate( random );
+        if ( measured ) {
+          if ( latency < 0 ) {
+            timeouts++;
+          } else {
+            clickToPaint.add( latency );
+          }
+        }
+      }
+
+      long heapGrowth = getUsedHeap() - baselineHeap;
+      int handleGrowth = display.call( () -> viewer.getResources().getHandleCount() ) - baselineHandles;
+      int objectGrowth = display.call( display::getGraphicsObjectCount ) - baselineObjects;
+
+      System.out.printf( "Navigations: %d (%d warm-up), %d components x %d pages, fan-out %d, data delay %d ms%n", navigations, warmUpNavigations,
+        componentCount, pageCount, fanOut, delayMs );
+      System.out.printf( "Click to paint: p50 %.1f ms, p95 %.1f ms, p99 %.1f ms, %d timeouts%n", toMillis( clickToPaint.getPercentile( 50 ) ),
+        toMillis( clickToPaint.getPercentile( 95 ) ), toMillis( clickToPaint.getPercentile( 99 ) ), timeouts );
+      System.out.printf( "Hover: p50 %.2f ms, p95 %.2f ms, p99 %.2f ms%n", toMillis( hover.getPercentile( 50 ) ), toMillis( hover.getPercentile( 95 ) ),
+        toMillis( hover.getPercentile( 99 ) ) );
+      System.out.printf( "Heap growth: %.1f MB%n", heapGrowth / 1024.0 / 1024.0 );
+      System.out.printf( "Viewer handle growth: %d, display graphics object growth: %d%n", handleGrowth, objectGrowth );
+
+      boolean passed = true;
+      if ( timeouts > 0 ) {
+        System.out.println( "FAILED: " + timeouts + " navigations didn't paint within " + NAVIGATION_TIMEOUT_SECONDS + " seconds" );
+        passed = false;
+      }
+      if ( toMillis( clickToPaint.getPercentile( 99 ) ) > maxP99Ms ) {
+        System.out.println( "FAILED: p99 click to paint latency above " + maxP99Ms + " ms" );
+        passed = false;
+      }
+      if ( heapGrowth > maxHeapGrowthMb * 1024 * 1024 ) {
+        System.out.println( "FAILED: heap grew more than " + maxHeapGrowthMb + " MB" );
+        passed = false;
+      }
+      if ( handleGrowth > maxHandleGrowth || objectGrowth > maxHandleGrowth ) {
+        System.out.println( "FAILED: more than " + maxHandleGrowth + " native handles leaked" );
+        passed = false;
+      }
+      if ( passed ) {
+        System.out.println( "PASSED" );
+      }
+      return passed;
+    } finally {
+      display.call( () -> {
+        if ( shell != null ) {
+          shell.dispose();
+        }
+        return null;
+      } );
+      renderService.shutdown();
+      display.dispose();
+    }
+  }
+
+  /**
+   * Click an item which opens another presentation and wait until the new page is painted
+   *
+   * @return The click to paint latency in nanoseconds or -1 if the page wasn't painted in time
+   */
+  private long navigate( Random random ) throws Exception {
+    // Flip through the dashboard pages first, like an analyst looking for the right label
+    //
+    CompletableFuture<RenderedPage> flipped = display.call( () -> {
+      if ( pageCount > 1 && BenchmarkPresentations.DASHBOARD_NAME.equals( viewer.getCurrentPresentationName() ) ) {
+        return viewer.showPage( random.nextInt( viewer.getPageCount() ) );
+      }
+      return null;
+    } );
+    if ( flipped != null ) {
+      flipped.get( NAVIGATION_TIMEOUT_SECONDS, TimeUnit.SECONDS );
+    }
+
+    long[] start = new long[ 1 ];
+    CountDownLatch latch = display.call( () -> {
+      // The labels of the dashboard open their presentation on a single click, the link back to the dashboard needs a
+      // double click
+      //
+      boolean dashboard = BenchmarkPresentations.DASHBOARD_NAME.equals( viewer.getCurrentPresentationName() );
+      BiPredicate<InteractionMap, DrawnItem> reacts = dashboard ? ( map, drawnItem ) -> map.getClickInteraction( drawnItem ) != null
+        : ( map, drawnItem ) -> map.getDoubleClickInteraction( drawnItem ) != null;
+      DrawnItem item = pickItem( random, reacts );
+      if ( item == null ) {
+        throw new IllegalStateException( "Nothing to click on presentation " + viewer.getCurrentPresentationName() );
+      }
+      Event event = createMouseEvent( item );
+      CountDownLatch clickPainted = expectPaint();
+      start[ 0 ] = System.nanoTime();
+      if ( dashboard ) {
+        canvas.notifyListeners( SWT.MouseDown, event );
+        canvas.notifyListeners( SWT.MouseUp, createMouseEvent( item ) );
+      } else {
+        canvas.notifyListeners( SWT.MouseDoubleClick, event );
+      }
+      return clickPainted;
+    } );
+    if ( !latch.await( NAVIGATION_TIMEOUT_SECONDS, TimeUnit.SECONDS ) ) {
+      return -1L;
+    }
+    return paintedNanos - start[ 0 ];
+  }
+
+  /**
+   * Move the mouse over a random item and paint what changed: the cursor, the highlight and the tooltip
+   *
+   * @return The time it took in nanoseconds or -1 if there is nothing to hover over
+   */
+  private long hover( Random random ) throws LeanException {
+    DrawnItem item = pickItem( random, ( map, drawnItem ) -> true );
+    if ( item == null ) {
+      return -1L;
+    }
+    long start = System.nanoTime();
+    canvas.notifyListeners( SWT.MouseMove, createMouseEvent( item ) );
+    canvas.update();
+    return System.nanoTime() - start;
+  }
+
+  /**
+   * Pick a random item of the current page with an interaction
+   *
+   * @param reacts Whether an item with an interaction reacts to the way it's going to be used
+   * @return The item or null if there is none
+   */
+  private DrawnItem pickItem( Random random, BiPredicate<InteractionMap, DrawnItem> reacts ) throws LeanException {
+    RenderedPage page = viewer.getCurrentPage();
+    if ( page == null ) {
+      return null;
+    }
+    InteractionMap interactionMap = page.getInteractionMap();
+    List<DrawnItem> candidates = new ArrayList<>();
+    for ( DrawnItem drawnItem : interactionMap.getInteractiveItems().keySet() ) {
+      if ( drawnItem.getGeometry() != null && reacts.test( interactionMap, drawnItem ) ) {
+        candidates.add( drawnItem );
+      }
+    }
+    return candidates.isEmpty() ? null : candidates.get( random.nextInt( candidates.size() ) );
+  }
+
+  /**
+   * A left button mouse event in the center of an item. The page fits the canvas so it's never scrolled.
+   */
+  private Event createMouseEvent( DrawnItem item ) {
+    LeanGeometry geometry = item.getGeometry();
+    double zoom = viewer.getZoom();
+    Event event = new Event();
+    event.x = (int) ( ( geometry.getX() + geometry.getWidth() / 2.0 ) * zoom );
+    event.y = (int) ( ( geometry.getY() + geometry.getHeight() / 2.0 ) * zoom );
+    event.button = 1;
+    event.count = 1;
+    return event;
+  }
+
+  /**
+   * Start waiting for the first paint of another page than the current one, on the display thread
+   */
+  private CountDownLatch expectPaint() {
+    previousPage = viewer.getCurrentPage();
+    painted = new CountDownLatch( 1 );
+    return painted;
+  }
+
+  private void pagePainted() {
+    RenderedPage page = viewer.getCurrentPage();
+    if ( painted != null && page != null && page != previousPage && page.isMaterialized() && viewer.getPendingRender() == null ) {
+      paintedNanos = System.nanoTime();
+      painted.countDown();
+      painted = null;
+    }
+  }
+
+  private static long getUsedHeap() throws InterruptedException {
+    Runtime runtime = Runtime.getRuntime();
+    for ( int i = 0; i < 3; i++ ) {
+      System.gc();
+      Thread.sleep( 100 );
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  private static double toMillis( long nanos ) {
+    return nanos / 1_000_000.0;
+  }
+}
@@ -0,0 +1,200 @@
+package org.lean.viewer.swt;
+
+import org.apache.batik.anim.dom.SAXSVGDocumentFactory;
+import org.apache.batik.gvt.GraphicsNode;
+import org.apache.batik.util.XMLResourceDescriptor;
+import org.apache.hop.metadata.api.IHopMetadataProvider;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.lean.presentation.LeanPresentation;
+import org.lean.presentation.layout.LeanLayoutResults;
+import org.lean.presentation.layout.LeanRenderPage;
+import org.lean.presentation.page.LeanPage;
+import org.lean.render.context.PresentationRenderContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.svg.SVGDocument;
+
+import java.awt.image.BufferedImage;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the stages between a presentation name and pixels on the screen, each on its own:
+ * metadata load, layout, render, SVG serialization, SVG parsing or import, building the Batik graphics tree,
+ * rasterization and the conversion to an SWT image.
+ * The layout and render stages hand over state which can only be consumed once so those are prepared per invocation.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class RenderPipelineBenchmark {
+
+  @State( Scope.Benchmark )
+  public static class Pipeline {
+
+    @Param( { "50", "200", "500" } )
+    public int componentCount;
+
+    BenchmarkPresentations presentations;
+    PresentationRenderer renderer;
+    LeanPresentation presentation;
+    int width;
+    int height;
+
+    // The output of every stage, made once so the next stage can be measured on its own
+    //
+    String svgXml;
+    SVGDocument svgDocument;
+    GraphicsNode graphicsNode;
+    BufferedImage bufferedImage;
+    ImageData imageData;
+
+    HeadlessDisplay display;
+
+    @Setup( Level.Trial )
+    public void setUp() throws Exception {
+      presentations = new BenchmarkPresentations( componentCount, 5 );
+      renderer = new PresentationRenderer( presentations.getLoggingObject(), presentations.getMetadataProvider() );
+      presentation = loadPresentation( presentations.getMetadataProvider() );
+
+      LeanRenderPage renderPage = layoutAndRender( this ).getRenderPages().get( 0 );
+      LeanPage page = renderPage.getPage();
+      width = page.getWidth();
+      height = page.getHeight();
+      svgXml = renderPage.getSvgXml();
+      svgDocument = parseSvg( svgXml );
+      graphicsNode = SvgRasterizer.buildGraphicsNode( svgDocument );
+      bufferedImage = SvgRasterizer.rasterize( graphicsNode, width, height );
+      imageData = SvgRasterizer.toImageData( bufferedImage );
+
+      display = new HeadlessDisplay();
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() throws Exception {
+      display.dispose();
+    }
+  }
+
+  /**
+   * A layout which wasn't rendered yet.
+   */
+  @State( Scope.Thread )
+  public static class LaidOut {
+    LeanLayoutResults results;
+
+    @Setup( Level.Invocation )
+    public void setUp( Pipeline pipeline ) throws Exception {
+      results = layout( pipeline );
+    }
+  }
+
+  /**
+   * A rendered page which didn't hand over its SVG yet.
+   */
+  @State( Scope.Thread )
+  public static class Rendered {
+    LeanRenderPage renderPage;
+
+    @Setup( Level.Invocation )
+    public void setUp( Pipeline pipeline ) throws Exception {
+      renderPage = layoutAndRender( pipeline ).getRenderPages().get( 0 );
+    }
+  }
+
+  @Benchmark
+  public LeanPresentation loadMetadata( Pipeline pipeline ) throws Exception {
+    return loadPresentation( pipeline.presentations.getMetadataProvider() );
+  }
+
+  @Benchmark
+  public LeanLayoutResults doLayout( Pipeline pipeline ) throws Exception {
+    return layout( pipeline );
+  }
+
+  @Benchmark
+  public LeanLayoutResults render( Pipeline pipeline, LaidOut laidOut ) throws Exception {
+    pipeline.presentation.render( laidOut.results, pipeline.presentations.getMetadataProvider() );
+    return laidOut.results;
+  }
+
+  @Benchmark
+  public String getSvgXml( Rendered rendered ) throws Exception {
+    return rendered.renderPage.getSvgXml();
+  }
+
+  @Benchmark
+  public SVGDocument parseSvgXml( Pipeline pipeline ) throws Exception {
+    return parseSvg( pipeline.svgXml );
+  }
+
+  @Benchmark
+  public SVGDocument importSvgDocument( Pipeline pipeline, Rendered rendered ) throws Exception {
+    return pipeline.renderer.createSvgDocument( rendered.renderPage );
+  }
+
+  @Benchmark
+  public GraphicsNode buildGraphicsNode( Pipeline pipeline ) {
+    return SvgRasterizer.buildGraphicsNode( pipeline.svgDocument );
+  }
+
+  @Benchmark
+  public BufferedImage rasterize( Pipeline pipeline ) {
+    return SvgRasterizer.rasterize( pipeline.graphicsNode, pipeline.width, pipeline.height );
+  }
+
+  @Benchmark
+  public ImageData toImageData( Pipeline pipeline ) {
+    return SvgRasterizer.toImageData( pipeline.bufferedImage );
+  }
+
+  @Benchmark
+  public int createSwtImage( Pipeline pipeline ) throws Exception {
+    return pipeline.display.call( () -> {
+      Image image = new Image( pipeline.display.getDisplay(), pipeline.imageData );
+      int width = image.getBounds().width;
+      image.dispose();
+      return width;
+    } );
+  }
+
+  @Benchmark
+  public RenderedPresentation renderPresentation( Pipeline pipeline ) throws Exception {
+    return pipeline.renderer.render( BenchmarkPresentations.DASHBOARD_NAME, null );
+  }
+
+  private static LeanPresentation loadPresentation( IHopMetadataProvider metadataProvider ) throws Exception {
+    return metadataProvider.getSerializer( LeanPresentation.class ).load( BenchmarkPresentations.DASHBOARD_NAME );
+  }
+
+  private static LeanLayoutResults layout( Pipeline pipeline ) throws Exception {
+    return pipeline.presentation.doLayout( pipeline.presentations.getLoggingObject(), new PresentationRenderContext( pipeline.presentation ),
+      pipeline.presentations.getMetadataProvider(), new ArrayList<>() );
+  }
+
+  private static LeanLayoutResults layoutAndRender( Pipeline pipeline ) throws Exception {
+    LeanLayoutResults results = layout( pipeline );
+    pipeline.presentation.render( results, pipeline.presentations.getMetadataProvider() );
+    return results;
+  }
+
+  private static SVGDocument parseSvg( String svgXml ) throws Exception {
+    SAXSVGDocumentFactory factory = new SAXSVGDocumentFactory( XMLResourceDescriptor.getXMLParserClassName() );
+    return factory.createSVGDocument( "", new StringReader( svgXml ) );
+  }
+}
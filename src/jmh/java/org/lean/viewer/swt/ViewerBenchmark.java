@@ -0,0 +1,147 @@
+package org.lean.viewer.swt;
+
+import org.apache.hop.core.variables.Variables;
+import org.eclipse.swt.layout.FillLayout;
+import org.eclipse.swt.widgets.Canvas;
+import org.eclipse.swt.widgets.Shell;
+import org.lean.core.draw.DrawnItem;
+import org.lean.presentation.layout.LeanRenderPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what the viewer does on the display thread: hit-testing a mouse position against the drawn items of a page,
+ * with the grid index and with the scan of the render page for comparison, and a full synchronous paint of the canvas.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class ViewerBenchmark {
+
+  private static final int POINT_COUNT = 1024;
+
+  @State( Scope.Benchmark )
+  public static class HitTest {
+
+    @Param( { "50", "200", "500" } )
+    public int componentCount;
+
+    LeanRenderPage renderPage;
+    DrawnItemIndex index;
+    int[] xs;
+    int[] ys;
+    int next;
+
+    @Setup( Level.Trial )
+    public void setUp() throws Exception {
+      BenchmarkPresentations presentations = new BenchmarkPresentations( componentCount, 5 );
+      PresentationRenderer renderer = new PresentationRenderer( presentations.getLoggingObject(), presentations.getMetadataProvider() );
+      RenderedPage page = renderer.render( BenchmarkPresentations.DASHBOARD_NAME, null ).getPage( 0 );
+      renderPage = page.getRenderPage();
+      index = page.getDrawnItemIndex();
+
+      // The same pseudo random mouse positions for every run
+      //
+      Random random = new Random( 42 );
+      xs = new int[ POINT_COUNT ];
+      ys = new int[ POINT_COUNT ];
+      for ( int i = 0; i < POINT_COUNT; i++ ) {
+        xs[ i ] = random.nextInt( renderPage.getPage().getWidth() );
+        ys[ i ] = random.nextInt( renderPage.getPage().getHeight() );
+      }
+    }
+
+    int nextPoint() {
+      next = ( next + 1 ) % POINT_COUNT;
+      return next;
+    }
+  }
+
+  @State( Scope.Benchmark )
+  public static class Paint {
+
+    @Param( { "200" } )
+    public int componentCount;
+
+    @Param( { "1.0", "1.5" } )
+    public double zoom;
+
+    HeadlessDisplay display;
+    Shell shell;
+    LeanPresentationViewer viewer;
+    Canvas canvas;
+
+    @Setup( Level.Trial )
+    public void setUp() throws Exception {
+      BenchmarkPresentations presentations = new BenchmarkPresentations( componentCount, 5 );
+      display = new HeadlessDisplay();
+      display.call( () -> {
+        shell = new Shell( display.getDisplay() );
+        shell.setLayout( new FillLayout() );
+        viewer = new LeanPresentationViewer( shell, presentations.getLoggingObject(), Variables.getADefaultVariableSpace(),
+          presentations.getMetadataProvider(), BenchmarkPresentations.DASHBOARD_NAME );
+        shell.setSize( 794, 1123 );
+        shell.open();
+        canvas = viewer.getwCanvas();
+        return null;
+      } );
+
+      // Wait for the start page to be shown at the requested zoom level
+      //
+      display.call( () -> viewer.openPresentation( BenchmarkPresentations.DASHBOARD_NAME, null ) ).get();
+      display.call( () -> viewer.showPage( 0 ) ).get();
+      display.call( () -> {
+        viewer.setZoom( zoom );
+        return null;
+      } );
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() throws Exception {
+      display.call( () -> {
+        shell.dispose();
+        return null;
+      } );
+      display.dispose();
+    }
+  }
+
+  @Benchmark
+  @OutputTimeUnit( TimeUnit.NANOSECONDS )
+  public DrawnItem lookupDrawnItem( HitTest hitTest ) {
+    int point = hitTest.nextPoint();
+    return hitTest.index.lookup( hitTest.xs[ point ], hitTest.ys[ point ] );
+  }
+
+  @Benchmark
+  @OutputTimeUnit( TimeUnit.NANOSECONDS )
+  public DrawnItem lookupDrawnItemRenderPage( HitTest hitTest ) {
+    int point = hitTest.nextPoint();
+    return hitTest.renderPage.lookupDrawnItem( hitTest.xs[ point ], hitTest.ys[ point ], true );
+  }
+
+  @Benchmark
+  @OutputTimeUnit( TimeUnit.MICROSECONDS )
+  public boolean paint( Paint paint ) throws Exception {
+    return paint.display.call( () -> {
+      paint.canvas.redraw();
+      paint.canvas.update();
+      return paint.canvas.isVisible();
+    } );
+  }
+}
@@ -0,0 +1,74 @@
+package org.lean.viewer.swt;
+
+import org.lean.core.LeanAttachment;
+import org.lean.presentation.component.LeanComponent;
+import org.lean.presentation.layout.LeanLayout;
+import org.lean.presentation.page.LeanPage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits the components of a page in groups which can be laid out independently of each other: components which are
+ * attached to each other, directly or through other components, end up in the same group. A component which is only
+ * attached to the page forms a group of its own.
+ */
+public class ComponentGroups {
+
+  private ComponentGroups() {
+  }
+
+  /**
+   * @param page The page to split
+   * @return The groups of component names in the order the components appear on the page
+   */
+  public static List<List<String>> find( LeanPage page ) {
+    Map<String, String> parents = new HashMap<>();
+    for ( LeanComponent component : page.getComponents() ) {
+      parents.put( component.getName(), component.getName() );
+    }
+    for ( LeanComponent component : page.getComponents() ) {
+      LeanLayout layout = component.getLayout();
+      if ( layout == null ) {
+        continue;
+      }
+      for ( LeanAttachment attachment : new LeanAttachment[] { layout.getLeft(), layout.getRight(), layout.getTop(), layout.getBottom() } ) {
+        if ( attachment != null && attachment.getComponentName() != null && parents.containsKey( attachment.getComponentName() ) ) {
+          union( parents, component.getName(), attachment.getComponentName() );
+        }
+      }
+    }
+
+    Map<String, List<String>> groups = new LinkedHashMap<>();
+    for ( LeanComponent component : page.getComponents() ) {
+      groups.computeIfAbsent( root( parents, component.getName() ), k -> new ArrayList<>() ).add( component.getName() );
+    }
+    return new ArrayList<>( groups.values() );
+  }
+
+  private static void union( Map<String, String> parents, String a, String b ) {
+    String rootA = root( parents, a );
+    String rootB = root( parents, b );
+    if ( !rootA.equals( rootB ) ) {
+      parents.put( rootB, rootA );
+    }
+  }
+
+  private static String root( Map<String, String> parents, String name ) {
+    String root = name;
+    while ( !root.equals( parents.get( root ) ) ) {
+      root = parents.get( root );
+    }
+    // Shorten the path for the next lookup
+    //
+    while ( !name.equals( root ) ) {
+      String parent = parents.get( name );
+      parents.put( name, root );
+      name = parent;
+    }
+    return root;
+  }
+}
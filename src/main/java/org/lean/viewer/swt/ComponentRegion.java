@@ -0,0 +1,92 @@
+package org.lean.viewer.swt;
+
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.Rectangle;
+
+import java.util.List;
+
+/**
+ * The raster of the area a group of components covers on the first page of a presentation, as produced by a
+ * {@link ProgressiveRender}.
+ * The raster covers the bounding box of the group which can overlap with the components of other groups. Only the
+ * pixels within the areas of the components of the group itself are copied to the page so that a group which is done
+ * later doesn't paint its background over a group which is already shown.
+ */
+public class ComponentRegion {
+
+  private final List<String> componentNames;
+  private final Rectangle bounds;
+  private final List<Rectangle> areas;
+  private final ImageData imageData;
+
+  /**
+   * @param componentNames The names of the components of the group
+   * @param bounds         The area of the raster in page coordinates
+   * @param areas          The areas of the components of the group in page coordinates, within the bounds
+   * @param imageData      The raster of the bounds
+   */
+  public ComponentRegion( List<String> componentNames, Rectangle bounds, List<Rectangle> areas, ImageData imageData ) {
+    this.componentNames = componentNames;
+    this.bounds = bounds;
+    this.areas = areas;
+    this.imageData = imageData;
+  }
+
+  /**
+   * Copy the areas of the components of this region into the raster of the whole page.
+   * Pixels outside of those areas are left alone, even if they're within the bounds of the region.
+   *
+   * @param pageImageData The raster of the page, in the format of {@link SvgRasterizer#toImageData}
+   */
+  public void copyTo( ImageData pageImageData ) {
+    int bytesPerPixel = pageImageData.depth / 8;
+    for ( Rectangle area : areas ) {
+      Rectangle clipped = area.intersection( bounds );
+      if ( clipped.isEmpty() ) {
+        continue;
+      }
+      int sourceX = clipped.x - bounds.x;
+      int sourceY = clipped.y - bounds.y;
+      for ( int row = 0; row < clipped.height; row++ ) {
+        System.arraycopy( imageData.data, ( sourceY + row ) * imageData.bytesPerLine + sourceX * bytesPerPixel, pageImageData.data,
+          ( clipped.y + row ) * pageImageData.bytesPerLine + clipped.x * bytesPerPixel, clipped.width * bytesPerPixel );
+      }
+    }
+  }
+
+  /**
+   * Gets componentNames
+   *
+   * @return value of componentNames
+   */
+  public List<String> getComponentNames() {
+    return componentNames;
+  }
+
+  /**
+   * Gets bounds
+   *
+   * @return The area of the region in page coordinates
+   */
+  public Rectangle getBounds() {
+    return bounds;
+  }
+
+  /**
+   * Gets areas
+   *
+   * @return The areas of the components of the region in page coordinates
+   */
+  public List<Rectangle> getAreas() {
+    return areas;
+  }
+
+  /**
+   * Gets imageData
+   *
+   * @return value of imageData
+   */
+  public ImageData getImageData() {
+    return imageData;
+  }
+}
@@ -0,0 +1,328 @@
+package org.lean.viewer.swt;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.metadata.api.IHopMetadataProvider;
+import org.apache.hop.metadata.serializer.json.JsonMetadataParser;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageLoader;
+import org.eclipse.swt.graphics.Rectangle;
+import org.lean.core.LeanGeometry;
+import org.lean.core.draw.DrawnItem;
+import org.lean.core.exception.LeanException;
+import org.lean.presentation.LeanPresentation;
+import org.lean.presentation.interaction.LeanInteraction;
+import org.lean.presentation.interaction.LeanInteractionAction;
+import org.lean.presentation.variable.LeanParameter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Keeps the first page of rendered presentations on disk so that a viewer can show the last known page right away on
+ * startup, while the presentation is rendered again in the background.
+ * Every presentation and parameter values combination is stored in a file of its own with the raster of the page as a
+ * PNG and the areas which open other presentations. A file is only used as long as the presentation metadata didn't
+ * change since it was written. A page which is rendered again with the same metadata and the same pixels isn't written
+ * again. When the files take up more than the maximum size, the least recently used are deleted.
+ * Set it on the render service with {@link PresentationRenderService#setDiskCache(DiskRenderCache)} before passing the
+ * service to a viewer, so that the starting presentation of the viewer can use it.
+ */
+public class DiskRenderCache {
+
+  public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+  private static final int MAGIC = 0x4C45414E; // LEAN
+  private static final int FORMAT_VERSION = 2;
+  private static final String EXTENSION = ".lean-snapshot";
+
+  private final File directory;
+  private final IHopMetadataProvider metadataProvider;
+  private long maxBytes;
+
+  /**
+   * @param directory        The directory to keep the snapshots in, created if needed
+   * @param metadataProvider The metadata provider to check the presentations against
+   */
+  public DiskRenderCache( File directory, IHopMetadataProvider metadataProvider ) {
+    this.directory = directory;
+    this.metadataProvider = metadataProvider;
+    this.maxBytes = DEFAULT_MAX_BYTES;
+  }
+
+  /**
+   * Store the first page of a rendered presentation.
+   *
+   * @param key      The presentation name and parameter values
+   * @param rendered The rendered presentation, its first page needs to be materialized
+   * @return true if the page was stored or is stored already, false if it isn't materialized (anymore)
+   * @throws HopException  In case the presentation metadata can't be serialized
+   * @throws LeanException In case the interactions of the page can't be resolved
+   * @throws IOException   In case the file can't be written
+   */
+  public boolean store( PresentationKey key, RenderedPresentation rendered ) throws HopException, LeanException, IOException {
+    RenderedPage page = rendered.getPage( 0 );
+    ImageData imageData = page.getImageData();
+    LeanPresentation presentation = metadataProvider.getSerializer( LeanPresentation.class ).load( key.getPresentationName() );
+    if ( imageData == null || presentation == null ) {
+      return false;
+    }
+
+    File file = getFile( key );
+    String fingerprint = getFingerprint( presentation );
+    String rasterHash = sha1( imageData.data );
+    if ( isStored( file, key, fingerprint, rasterHash ) ) {
+      // A refresh which didn't change anything, only mark the snapshot as recently used
+      //
+      file.setLastModified( System.currentTimeMillis() );
+      return true;
+    }
+
+    ByteArrayOutputStream png = new ByteArrayOutputStream();
+    ImageLoader loader = new ImageLoader();
+    loader.data = new ImageData[] { imageData };
+    loader.save( png, SWT.IMAGE_PNG );
+
+    if ( !directory.exists() && !directory.mkdirs() ) {
+      throw new IOException( "Unable to create render cache directory " + directory );
+    }
+
+    // A temporary file of its own so that concurrent stores of the same key can't write to the same file
+    //
+    File temporary = Files.createTempFile( directory.toPath(), file.getName(), ".tmp" ).toFile();
+    try {
+      try ( DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( temporary ) ) ) ) {
+        out.writeInt( MAGIC );
+        out.writeInt( FORMAT_VERSION );
+        out.writeUTF( key.getPresentationName() );
+        out.writeUTF( fingerprint );
+        out.writeUTF( rasterHash );
+        writeHitAreas( out, rendered, page );
+        out.writeInt( png.size() );
+        png.writeTo( out );
+      }
+      Files.move( temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+    } finally {
+      Files.deleteIfExists( temporary.toPath() );
+    }
+
+    evict();
+    return true;
+  }
+
+  /**
+   * @return true if the file holds a snapshot of the same metadata with the same pixels
+   */
+  private static boolean isStored( File file, PresentationKey key, String fingerprint, String rasterHash ) {
+    if ( !file.exists() ) {
+      return false;
+    }
+    try ( DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ) ) ) ) {
+      return in.readInt() == MAGIC && in.readInt() == FORMAT_VERSION && key.getPresentationName().equals( in.readUTF() )
+        && fingerprint.equals( in.readUTF() ) && rasterHash.equals( in.readUTF() );
+    } catch ( IOException e ) {
+      // Evicted in the meantime or unreadable, simply write it again
+      //
+      return false;
+    }
+  }
+
+  private static void writeHitAreas( DataOutputStream out, RenderedPresentation rendered, RenderedPage page ) throws LeanException, IOException {
+    InteractionMap interactionMap = page.getInteractionMap();
+    List<PageSnapshot.HitArea> hitAreas = new ArrayList<>();
+    for ( DrawnItem drawnItem : interactionMap.getInteractiveItems().keySet() ) {
+      LeanGeometry geometry = drawnItem.getGeometry();
+      if ( geometry == null ) {
+        continue;
+      }
+      Rectangle bounds = new Rectangle( geometry.getX(), geometry.getY(), geometry.getWidth() + 1, geometry.getHeight() + 1 );
+      for ( boolean doubleClick : new boolean[] { false, true } ) {
+        LeanInteraction interaction = doubleClick ? interactionMap.getDoubleClickInteraction( drawnItem ) : interactionMap.getClickInteraction( drawnItem );
+        LeanInteractionAction action = InteractionMap.findOpenPresentationAction( interaction );
+        if ( action != null ) {
+          hitAreas.add( new PageSnapshot.HitArea( bounds, doubleClick, action.getObjectName(),
+            InteractionMap.resolveParameters( rendered.getPresentation(), action, drawnItem ) ) );
+        }
+      }
+    }
+
+    out.writeInt( hitAreas.size() );
+    for ( PageSnapshot.HitArea hitArea : hitAreas ) {
+      Rectangle bounds = hitArea.getBounds();
+      out.writeInt( bounds.x );
+      out.writeInt( bounds.y );
+      out.writeInt( bounds.width );
+      out.writeInt( bounds.height );
+      out.writeBoolean( hitArea.isDoubleClick() );
+      out.writeUTF( hitArea.getPresentationName() );
+      out.writeInt( hitArea.getParameters().size() );
+      for ( LeanParameter parameter : hitArea.getParameters() ) {
+        out.writeUTF( parameter.getParameterName() );
+        out.writeUTF( parameter.getParameterValue() == null ? "" : parameter.getParameterValue() );
+      }
+    }
+  }
+
+  /**
+   * Load the stored first page of a presentation.
+   *
+   * @param key The presentation name and parameter values
+   * @return The snapshot of the page or null if none is stored or if the presentation changed since it was stored
+   * @throws HopException In case the presentation metadata can't be loaded
+   * @throws IOException  In case the file can't be read
+   */
+  public PageSnapshot load( PresentationKey key ) throws HopException, IOException {
+    File file = getFile( key );
+    if ( !file.exists() ) {
+      return null;
+    }
+    LeanPresentation presentation = metadataProvider.getSerializer( LeanPresentation.class ).load( key.getPresentationName() );
+    if ( presentation == null ) {
+      return null;
+    }
+
+    PageSnapshot snapshot;
+    try ( DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ) ) ) ) {
+      if ( in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !key.getPresentationName().equals( in.readUTF() )
+        || !getFingerprint( presentation ).equals( in.readUTF() ) ) {
+        // Written by another version or for other metadata
+        //
+        in.close();
+        Files.deleteIfExists( file.toPath() );
+        return null;
+      }
+      in.readUTF(); // raster hash, only used to skip storing the same page again
+      List<PageSnapshot.HitArea> hitAreas = new ArrayList<>();
+      int hitAreaCount = in.readInt();
+      for ( int i = 0; i < hitAreaCount; i++ ) {
+        Rectangle bounds = new Rectangle( in.readInt(), in.readInt(), in.readInt(), in.readInt() );
+        boolean doubleClick = in.readBoolean();
+        String presentationName = in.readUTF();
+        List<LeanParameter> parameters = new ArrayList<>();
+        int parameterCount = in.readInt();
+        for ( int p = 0; p < parameterCount; p++ ) {
+          LeanParameter parameter = new LeanParameter();
+          parameter.setParameterName( in.readUTF() );
+          parameter.setParameterValue( in.readUTF() );
+          parameters.add( parameter );
+        }
+        hitAreas.add( new PageSnapshot.HitArea( bounds, doubleClick, presentationName, parameters ) );
+      }
+      byte[] png = new byte[ in.readInt() ];
+      in.readFully( png );
+      ImageData imageData = new ImageLoader().load( new ByteArrayInputStream( png ) )[ 0 ];
+      snapshot = new PageSnapshot( key.getPresentationName(), imageData, hitAreas );
+    }
+
+    // Recently used snapshots are evicted last
+    //
+    file.setLastModified( System.currentTimeMillis() );
+    return snapshot;
+  }
+
+  /**
+   * Delete all stored snapshots
+   */
+  public synchronized void clear() {
+    for ( File file : listFiles() ) {
+      file.delete();
+    }
+  }
+
+  private synchronized void evict() {
+    File[] files = listFiles();
+    long total = 0;
+    for ( File file : files ) {
+      total += file.length();
+    }
+    if ( total <= maxBytes ) {
+      return;
+    }
+    Arrays.sort( files, Comparator.comparingLong( File::lastModified ) );
+    for ( File file : files ) {
+      if ( total <= maxBytes ) {
+        break;
+      }
+      long length = file.length();
+      if ( file.delete() ) {
+        total -= length;
+      }
+    }
+  }
+
+  private File[] listFiles() {
+    File[] files = directory.listFiles( ( dir, name ) -> name.endsWith( EXTENSION ) );
+    return files == null ? new File[ 0 ] : files;
+  }
+
+  private File getFile( PresentationKey key ) {
+    return new File( directory, sha1( key.toString() ) + EXTENSION );
+  }
+
+  /**
+   * The fingerprint of the presentation metadata: a hash of its JSON serialization
+   */
+  private String getFingerprint( LeanPresentation presentation ) throws HopException {
+    JsonMetadataParser<LeanPresentation> parser = new JsonMetadataParser<>( LeanPresentation.class, metadataProvider );
+    return sha1( parser.getJsonObject( presentation ).toJSONString() );
+  }
+
+  private static String sha1( String value ) {
+    return sha1( value.getBytes( StandardCharsets.UTF_8 ) );
+  }
+
+  private static String sha1( byte[] value ) {
+    try {
+      byte[] digest = MessageDigest.getInstance( "SHA-1" ).digest( value );
+      StringBuilder hex = new StringBuilder();
+      for ( byte b : digest ) {
+        hex.append( String.format( "%02x", b ) );
+      }
+      return hex.toString();
+    } catch ( NoSuchAlgorithmException e ) {
+      throw new IllegalStateException( "SHA-1 is not available", e );
+    }
+  }
+
+  /**
+   * Gets directory
+   *
+   * @return value of directory
+   */
+  public File getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Gets maxBytes
+   *
+   * @return value of maxBytes
+   */
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * @param maxBytes The maximum size of all stored snapshots together
+   */
+  public void setMaxBytes( long maxBytes ) {
+    this.maxBytes = maxBytes;
+  }
+}
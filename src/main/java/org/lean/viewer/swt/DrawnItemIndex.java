@@ -0,0 +1,129 @@
+package org.lean.viewer.swt;
+
+import org.lean.core.LeanGeometry;
+import org.lean.core.draw.DrawnItem;
+import org.lean.presentation.layout.LeanRenderPage;
+import org.lean.presentation.page.LeanPage;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A uniform grid over the drawn items of a render page to quickly find the item at a location.
+ * Every cell of the grid lists the items (in drawing order) whose bounds overlap the cell so that a lookup only has to
+ * check the few items in a single cell instead of all the items of the page.
+ * Lookups return the same item as {@link LeanRenderPage#lookupDrawnItem(int, int, boolean)} with components excluded:
+ * the first item in drawing order which contains the location.
+ */
+public class DrawnItemIndex {
+
+  public static final int DEFAULT_CELL_SIZE = 32;
+
+  private static final int[] EMPTY = new int[ 0 ];
+
+  private final List<DrawnItem> drawnItems;
+  private final int cellSize;
+  private final int columns;
+  private final int rows;
+
+  // The indexes of the drawn items per cell and the number of indexes used in each cell
+  //
+  private final int[][] cells;
+  private final int[] cellCounts;
+
+  public DrawnItemIndex( LeanRenderPage renderPage ) {
+    this( renderPage, DEFAULT_CELL_SIZE );
+  }
+
+  public DrawnItemIndex( LeanRenderPage renderPage, int cellSize ) {
+    LeanPage page = renderPage.getPage();
+    this.drawnItems = renderPage.getDrawnItems();
+    this.cellSize = cellSize;
+    this.columns = Math.max( 1, ( page.getWidth() + cellSize - 1 ) / cellSize );
+    this.rows = Math.max( 1, ( page.getHeight() + cellSize - 1 ) / cellSize );
+    this.cells = new int[ columns * rows ][];
+    this.cellCounts = new int[ columns * rows ];
+
+    for ( int i = 0; i < drawnItems.size(); i++ ) {
+      DrawnItem drawnItem = drawnItems.get( i );
+      if ( drawnItem.getType() == DrawnItem.DrawnItemType.Component ) {
+        continue;
+      }
+      LeanGeometry geometry = drawnItem.getGeometry();
+      if ( geometry == null ) {
+        continue;
+      }
+      int firstColumn = column( geometry.getX() );
+      int lastColumn = column( geometry.getX() + geometry.getWidth() );
+      int firstRow = row( geometry.getY() );
+      int lastRow = row( geometry.getY() + geometry.getHeight() );
+      for ( int row = firstRow; row <= lastRow; row++ ) {
+        for ( int column = firstColumn; column <= lastColumn; column++ ) {
+          add( row * columns + column, i );
+        }
+      }
+    }
+  }
+
+  private void add( int cell, int itemIndex ) {
+    int[] items = cells[ cell ];
+    int count = cellCounts[ cell ];
+    if ( items == null ) {
+      items = new int[ 4 ];
+    } else if ( count == items.length ) {
+      items = Arrays.copyOf( items, count * 2 );
+    }
+    items[ count ] = itemIndex;
+    cells[ cell ] = items;
+    cellCounts[ cell ] = count + 1;
+  }
+
+  private int column( int x ) {
+    return Math.max( 0, Math.min( columns - 1, x / cellSize ) );
+  }
+
+  private int row( int y ) {
+    return Math.max( 0, Math.min( rows - 1, y / cellSize ) );
+  }
+
+  /**
+   * Find the drawn item at the given location, components are excluded.
+   *
+   * @param x The horizontal location on the page
+   * @param y The vertical location on the page
+   * @return The first drawn item containing the location or null if there is none
+   */
+  public DrawnItem lookup( int x, int y ) {
+    int cell = row( y ) * columns + column( x );
+    int[] items = cells[ cell ] == null ? EMPTY : cells[ cell ];
+    int count = cellCounts[ cell ];
+    for ( int i = 0; i < count; i++ ) {
+      DrawnItem drawnItem = drawnItems.get( items[ i ] );
+      if ( contains( drawnItem.getGeometry(), x, y ) ) {
+        return drawnItem;
+      }
+    }
+    return null;
+  }
+
+  private static boolean contains( LeanGeometry geometry, int x, int y ) {
+    return x >= geometry.getX() && x <= geometry.getX() + geometry.getWidth()
+      && y >= geometry.getY() && y <= geometry.getY() + geometry.getHeight();
+  }
+
+  /**
+   * @return The number of drawn items on the page
+   */
+  public int getItemCount() {
+    return drawnItems.size();
+  }
+
+  /**
+   * Gets cellSize
+   *
+   * @return value of cellSize
+   */
+  public int getCellSize() {
+    return cellSize;
+  }
+}
@@ -0,0 +1,25 @@
+package org.lean.viewer.swt;
+
+/**
+ * The file formats the {@link LeanPresentationExporter} can write pages in
+ */
+public enum ExportFormat {
+  PNG( ".png" ),
+  SVG( ".svg" ),
+  ;
+
+  private final String extension;
+
+  ExportFormat( String extension ) {
+    this.extension = extension;
+  }
+
+  /**
+   * Gets extension
+   *
+   * @return value of extension
+   */
+  public String getExtension() {
+    return extension;
+  }
+}
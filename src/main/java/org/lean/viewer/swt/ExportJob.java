@@ -0,0 +1,120 @@
+package org.lean.viewer.swt;
+
+import org.lean.presentation.variable.LeanParameter;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A presentation to export with the {@link LeanPresentationExporter}: which parameter values to render it with, in
+ * which format and where to.
+ * Every page ends up in a file of its own called {@code <baseName>-<page number><extension>} in the output directory.
+ * The default base name includes a hash of the parameter values so that jobs for the same presentation with other
+ * parameter values don't write to the same files.
+ */
+public class ExportJob {
+
+  private final String presentationName;
+  private final List<LeanParameter> parameters;
+  private final ExportFormat format;
+  private final File directory;
+  private final String baseName;
+  private double scale;
+
+  /**
+   * @param presentationName The name of the presentation to export
+   * @param parameters       The parameters to render the presentation with or null
+   * @param format           The format to write the pages in
+   * @param directory        The directory to write the pages to, created if needed
+   * @param baseName         The start of the file names of the pages or null to use the presentation name, followed by
+   *                         a hash of the parameter values if there are any
+   */
+  public ExportJob( String presentationName, List<LeanParameter> parameters, ExportFormat format, File directory, String baseName ) {
+    this.presentationName = presentationName;
+    this.parameters = parameters == null ? new ArrayList<>() : parameters;
+    this.format = format;
+    this.directory = directory;
+    this.baseName = baseName == null ? getDefaultBaseName( presentationName, this.parameters ) : baseName;
+    this.scale = 1.0;
+  }
+
+  private static String getDefaultBaseName( String presentationName, List<LeanParameter> parameters ) {
+    String name = presentationName.replaceAll( "[^A-Za-z0-9._-]", "_" );
+    if ( parameters.isEmpty() ) {
+      return name;
+    }
+    // The key sorts the parameters by name so the order they're passed in doesn't matter
+    //
+    return name + "-" + String.format( "%08x", new PresentationKey( presentationName, parameters ).toString().hashCode() );
+  }
+
+  /**
+   * @param pageIndex The index of the page
+   * @return The file to write the page to
+   */
+  public File getFile( int pageIndex ) {
+    return new File( directory, baseName + "-" + ( pageIndex + 1 ) + format.getExtension() );
+  }
+
+  /**
+   * Gets presentationName
+   *
+   * @return value of presentationName
+   */
+  public String getPresentationName() {
+    return presentationName;
+  }
+
+  /**
+   * Gets parameters
+   *
+   * @return value of parameters
+   */
+  public List<LeanParameter> getParameters() {
+    return parameters;
+  }
+
+  /**
+   * Gets format
+   *
+   * @return value of format
+   */
+  public ExportFormat getFormat() {
+    return format;
+  }
+
+  /**
+   * Gets directory
+   *
+   * @return value of directory
+   */
+  public File getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Gets baseName
+   *
+   * @return value of baseName
+   */
+  public String getBaseName() {
+    return baseName;
+  }
+
+  /**
+   * Gets scale
+   *
+   * @return value of scale
+   */
+  public double getScale() {
+    return scale;
+  }
+
+  /**
+   * @param scale The scale to rasterize PNG pages at, 1.0 by default. It doesn't apply to SVG pages.
+   */
+  public void setScale( double scale ) {
+    this.scale = scale;
+  }
+}
@@ -0,0 +1,105 @@
+package org.lean.viewer.swt;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What a batch export of the {@link LeanPresentationExporter} produced: the files written, the jobs which failed and
+ * the throughput.
+ */
+public class ExportResult {
+
+  private final List<File> files;
+  private final Map<ExportJob, Exception> errors;
+  private long bytesWritten;
+  private long elapsedNanos;
+
+  public ExportResult() {
+    this.files = new ArrayList<>();
+    this.errors = new LinkedHashMap<>();
+  }
+
+  synchronized void addFile( File file ) {
+    files.add( file );
+    bytesWritten += file.length();
+  }
+
+  synchronized void addError( ExportJob job, Exception error ) {
+    errors.put( job, error );
+  }
+
+  synchronized void setElapsedNanos( long elapsedNanos ) {
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  /**
+   * @return The number of pages written
+   */
+  public synchronized int getPageCount() {
+    return files.size();
+  }
+
+  /**
+   * @return The number of pages written per second of wall clock time
+   */
+  public synchronized double getPagesPerSecond() {
+    return elapsedNanos == 0 ? 0.0 : files.size() * 1_000_000_000.0 / elapsedNanos;
+  }
+
+  /**
+   * @return The number of bytes written per second of wall clock time
+   */
+  public synchronized double getBytesPerSecond() {
+    return elapsedNanos == 0 ? 0.0 : bytesWritten * 1_000_000_000.0 / elapsedNanos;
+  }
+
+  /**
+   * @return true if all jobs were exported
+   */
+  public synchronized boolean isSuccessful() {
+    return errors.isEmpty();
+  }
+
+  /**
+   * Gets files
+   *
+   * @return The files written, in the order they were finished
+   */
+  public synchronized List<File> getFiles() {
+    return Collections.unmodifiableList( new ArrayList<>( files ) );
+  }
+
+  /**
+   * Gets errors
+   *
+   * @return The jobs which failed with the reason why
+   */
+  public synchronized Map<ExportJob, Exception> getErrors() {
+    return Collections.unmodifiableMap( new LinkedHashMap<>( errors ) );
+  }
+
+  /**
+   * Gets bytesWritten
+   *
+   * @return value of bytesWritten
+   */
+  public synchronized long getBytesWritten() {
+    return bytesWritten;
+  }
+
+  /**
+   * @return The wall clock time the export took in milliseconds
+   */
+  public synchronized long getElapsedMillis() {
+    return elapsedNanos / 1_000_000L;
+  }
+
+  @Override public synchronized String toString() {
+    return String.format( "%d pages (%d bytes) in %d ms: %.1f pages/s, %.1f KB/s, %d failed", files.size(), bytesWritten, getElapsedMillis(),
+      getPagesPerSecond(), getBytesPerSecond() / 1024, errors.size() );
+  }
+}
@@ -0,0 +1,18 @@
+package org.lean.viewer.swt;
+
+/**
+ * Gets notified of every measured render stage.
+ * Stages are measured on the render threads as well as on the display thread so implementations need to be thread safe
+ * and quick.
+ */
+public interface IRenderMetricsListener {
+
+  /**
+   * A render stage finished
+   *
+   * @param presentationName The name of the presentation
+   * @param stage            The stage which finished
+   * @param durationNanos    The duration of the stage in nanoseconds
+   */
+  void stageMeasured( String presentationName, RenderStage stage, long durationNanos );
+}
@@ -0,0 +1,161 @@
+package org.lean.viewer.swt;
+
+import org.apache.commons.lang.StringUtils;
+import org.lean.core.draw.DrawnItem;
+import org.lean.core.exception.LeanException;
+import org.lean.presentation.LeanPresentation;
+import org.lean.presentation.interaction.LeanInteraction;
+import org.lean.presentation.interaction.LeanInteractionAction;
+import org.lean.presentation.interaction.LeanInteractionMethod;
+import org.lean.presentation.interaction.LeanInteractionParameter;
+import org.lean.presentation.variable.LeanParameter;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The interactions of the drawn items of a render page, resolved once per interaction method.
+ * Hovering and clicking then only need a map lookup instead of searching the interactions of the presentation.
+ */
+public class InteractionMap {
+
+  // The methods to resolve the interactions with, hovering matches any interaction method.
+  // They're only handed to the presentation: callers ask for the interaction of a method through the getters.
+  //
+  private static final LeanInteractionMethod HOVER = null;
+  private static final LeanInteractionMethod SINGLE_CLICK = new LeanInteractionMethod( true, false );
+  private static final LeanInteractionMethod DOUBLE_CLICK = new LeanInteractionMethod( false, true );
+
+  private final Map<DrawnItem, LeanInteraction> hoverInteractions;
+  private final Map<DrawnItem, LeanInteraction> singleClickInteractions;
+  private final Map<DrawnItem, LeanInteraction> doubleClickInteractions;
+
+  public InteractionMap( LeanPresentation presentation, List<DrawnItem> drawnItems ) throws LeanException {
+    hoverInteractions = new IdentityHashMap<>();
+    singleClickInteractions = new IdentityHashMap<>();
+    doubleClickInteractions = new IdentityHashMap<>();
+
+    for ( DrawnItem drawnItem : drawnItems ) {
+      LeanInteraction hover = presentation.findInteraction( HOVER, drawnItem );
+      if ( hover == null ) {
+        // Nothing matches for any method
+        //
+        continue;
+      }
+      hoverInteractions.put( drawnItem, hover );
+      put( singleClickInteractions, drawnItem, presentation.findInteraction( SINGLE_CLICK, drawnItem ) );
+      put( doubleClickInteractions, drawnItem, presentation.findInteraction( DOUBLE_CLICK, drawnItem ) );
+    }
+  }
+
+  private static void put( Map<DrawnItem, LeanInteraction> map, DrawnItem drawnItem, LeanInteraction interaction ) {
+    if ( interaction != null ) {
+      map.put( drawnItem, interaction );
+    }
+  }
+
+  /**
+   * @param drawnItem The drawn item to look up
+   * @return The first interaction of the drawn item for any interaction method or null if there is none
+   */
+  public LeanInteraction getInteraction( DrawnItem drawnItem ) {
+    return drawnItem == null ? null : hoverInteractions.get( drawnItem );
+  }
+
+  /**
+   * @param drawnItem The drawn item to look up
+   * @return The interaction of the drawn item for a single mouse click or null if there is none
+   */
+  public LeanInteraction getClickInteraction( DrawnItem drawnItem ) {
+    return drawnItem == null ? null : singleClickInteractions.get( drawnItem );
+  }
+
+  /**
+   * @param drawnItem The drawn item to look up
+   * @return The interaction of the drawn item for a mouse double click or null if there is none
+   */
+  public LeanInteraction getDoubleClickInteraction( DrawnItem drawnItem ) {
+    return drawnItem == null ? null : doubleClickInteractions.get( drawnItem );
+  }
+
+  /**
+   * @param drawnItem The drawn item to look up
+   * @return true if any interaction exists for the drawn item
+   */
+  public boolean hasInteraction( DrawnItem drawnItem ) {
+    return drawnItem != null && hoverInteractions.containsKey( drawnItem );
+  }
+
+  /**
+   * @return The drawn items with at least one interaction and their (first) interaction
+   */
+  public Map<DrawnItem, LeanInteraction> getInteractiveItems() {
+    return hoverInteractions;
+  }
+
+  /**
+   * Calculate the parameters an action passes on when it's triggered on a drawn item.
+   *
+   * @param presentation The presentation the drawn item is part of
+   * @param action       The action to trigger
+   * @param drawnItem    The drawn item the action is triggered on
+   * @return The parameters with their values
+   */
+  public static List<LeanParameter> resolveParameters( LeanPresentation presentation, LeanInteractionAction action, DrawnItem drawnItem ) {
+    List<LeanParameter> parameters = new ArrayList<>();
+
+    for ( LeanInteractionParameter parameter : action.getParameters() ) {
+
+      LeanParameter leanParameter = new LeanParameter();
+      leanParameter.setParameterName( parameter.getParameterName() );
+      String value = "";
+      switch ( parameter.getSourceType() ) {
+        case PresentationName:
+          value =
+            presentation.getName();
+          break;
+        case ComponentName:
+          value =
+            drawnItem.getComponentName();
+          break;
+        case ItemType:
+          value = drawnItem.getType().name();
+          break;
+        case ItemValue:
+          if (drawnItem.getContext()!=null) {
+            value = drawnItem.getContext().getValue();
+          }
+          break;
+        case ItemCategory:
+          value = drawnItem.getCategory();
+          break;
+        case ComponentPluginId:
+          value = drawnItem.getComponentPluginId();
+          break;
+      }
+      leanParameter.setParameterValue( value );
+      parameters.add( leanParameter );
+    }
+    return parameters;
+  }
+
+  /**
+   * Find the first action of an interaction which opens a presentation.
+   *
+   * @param interaction The interaction to look at, can be null
+   * @return The action or null if the interaction doesn't open a presentation
+   */
+  public static LeanInteractionAction findOpenPresentationAction( LeanInteraction interaction ) {
+    if ( interaction == null ) {
+      return null;
+    }
+    for ( LeanInteractionAction action : interaction.getActions() ) {
+      if ( action.getActionType() == LeanInteractionAction.ActionType.OpenPresentation && StringUtils.isNotEmpty( action.getObjectName() ) ) {
+        return action;
+      }
+    }
+    return null;
+  }
+}
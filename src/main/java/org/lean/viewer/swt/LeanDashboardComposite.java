@@ -0,0 +1,106 @@
+package org.lean.viewer.swt;
+
+import org.apache.hop.core.logging.ILoggingObject;
+import org.apache.hop.core.variables.IVariables;
+import org.apache.hop.metadata.api.IHopMetadataProvider;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Composite;
+import org.lean.presentation.variable.LeanParameter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A grid of presentation viewers sharing a single render service.
+ * The presentations of all tiles are rendered in parallel on a bounded executor sized to the number of cores and every
+ * tile is painted as soon as its own presentation is ready. Tiles showing the same presentation with the same parameter
+ * values share a single render.
+ */
+public class LeanDashboardComposite extends Composite {
+
+  private final ILoggingObject loggingObject;
+  private final IVariables variables;
+  private final IHopMetadataProvider metadataProvider;
+  private final PresentationRenderService renderService;
+  private final List<LeanPresentationViewer> viewers;
+
+  /**
+   * @param parent           The parent composite to use.
+   * @param metadataProvider The metadata provider to use to load presentations and other objects
+   * @param columns          The number of tiles next to each other
+   */
+  public LeanDashboardComposite( Composite parent, ILoggingObject loggingObject, IVariables variables, IHopMetadataProvider metadataProvider, int columns ) {
+    this( parent, loggingObject, variables, metadataProvider, columns, PresentationRenderService.createShared( loggingObject, metadataProvider ) );
+  }
+
+  /**
+   * @param parent           The parent composite to use.
+   * @param metadataProvider The metadata provider to use to load presentations and other objects
+   * @param columns          The number of tiles next to each other
+   * @param renderService    The render service to share between the tiles, shut down when this composite is disposed
+   */
+  public LeanDashboardComposite( Composite parent, ILoggingObject loggingObject, IVariables variables, IHopMetadataProvider metadataProvider, int columns,
+                                 PresentationRenderService renderService ) {
+    super( parent, SWT.NONE );
+    this.loggingObject = loggingObject;
+    this.variables = variables;
+    this.metadataProvider = metadataProvider;
+    this.renderService = renderService;
+    this.viewers = new ArrayList<>();
+
+    GridLayout layout = new GridLayout( columns, true );
+    layout.marginWidth = 0;
+    layout.marginHeight = 0;
+    setLayout( layout );
+
+    addDisposeListener( e -> renderService.shutdown() );
+  }
+
+  /**
+   * Add a tile showing a presentation. Its render starts right away.
+   *
+   * @param presentationName The name of the presentation to show
+   * @return The viewer of the tile
+   */
+  public LeanPresentationViewer addViewer( String presentationName ) {
+    return addViewer( presentationName, null );
+  }
+
+  /**
+   * Add a tile showing a presentation. Its render starts right away.
+   *
+   * @param presentationName The name of the presentation to show
+   * @param parameters       The parameters to render the presentation with, can be null
+   * @return The viewer of the tile
+   */
+  public LeanPresentationViewer addViewer( String presentationName, List<LeanParameter> parameters ) {
+    checkWidget();
+    LeanPresentationViewer viewer = new LeanPresentationViewer( this, loggingObject, variables, metadataProvider, presentationName, parameters, renderService );
+    viewer.setLayoutData( new GridData( SWT.FILL, SWT.FILL, true, true ) );
+    viewer.addDisposeListener( e -> viewers.remove( viewer ) );
+    viewers.add( viewer );
+    layout( true );
+    return viewer;
+  }
+
+  /**
+   * Gets viewers
+   *
+   * @return value of viewers
+   */
+  public List<LeanPresentationViewer> getViewers() {
+    return Collections.unmodifiableList( viewers );
+  }
+
+  /**
+   * Gets renderService
+   *
+   * @return value of renderService
+   */
+  public PresentationRenderService getRenderService() {
+    return renderService;
+  }
+}
@@ -0,0 +1,192 @@
+package org.lean.viewer.swt;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.logging.ILoggingObject;
+import org.apache.hop.core.logging.LogChannel;
+import org.apache.hop.metadata.api.IHopMetadataProvider;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageLoader;
+import org.lean.core.exception.LeanException;
+import org.lean.presentation.layout.LeanRenderPage;
+import org.lean.presentation.page.LeanPage;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Renders presentations to files without a display, using the same pipeline as the viewer: load the metadata, lay
+ * out, render and rasterize. The jobs of a batch run concurrently, one per render thread.
+ * <p>
+ * Lean lays out and renders all pages of a presentation in one go, so a render thread holds the rendered pages of the
+ * presentation it's exporting. The SVG and the raster of a page only exist while that page is written and every page
+ * is dropped from the render results as soon as it's on disk, so the memory used shrinks page by page.
+ */
+public class LeanPresentationExporter {
+
+  private final PresentationRenderer renderer;
+  private final ExecutorService executor;
+  private final LogChannel log;
+
+  /**
+   * Create an exporter with a render thread per processor core
+   *
+   * @param loggingObject    The parent logging object
+   * @param metadataProvider The metadata provider to load the presentations from
+   */
+  public LeanPresentationExporter( ILoggingObject loggingObject, IHopMetadataProvider metadataProvider ) {
+    this( new PresentationRenderer( loggingObject, metadataProvider ), Runtime.getRuntime().availableProcessors() );
+  }
+
+  /**
+   * @param renderer The renderer to render the presentations with
+   * @param threads  The number of presentations to export at the same time
+   */
+  public LeanPresentationExporter( PresentationRenderer renderer, int threads ) {
+    this.renderer = renderer;
+    this.executor = PresentationRenderService.createExecutor( Math.max( 1, threads ) );
+    this.log = new LogChannel( renderer.getLoggingObject() );
+  }
+
+  /**
+   * Export a batch of presentations. A job which fails doesn't stop the others, its error ends up in the result.
+   *
+   * @param jobs The presentations to export
+   * @return The files written with the throughput of the batch
+   * @throws InterruptedException     In case the calling thread is interrupted while waiting, the remaining jobs are
+   *                                  cancelled
+   * @throws IllegalArgumentException In case two jobs would write to the same files
+   */
+  public ExportResult export( List<ExportJob> jobs ) throws InterruptedException {
+    Set<File> targets = new HashSet<>();
+    for ( ExportJob job : jobs ) {
+      if ( !targets.add( job.getFile( 0 ).getAbsoluteFile() ) ) {
+        throw new IllegalArgumentException( "More than one job exports to " + job.getFile( 0 ) + ", use another base name or directory" );
+      }
+    }
+
+    ExportResult result = new ExportResult();
+    long start = System.nanoTime();
+
+    List<Future<?>> futures = new ArrayList<>();
+    for ( ExportJob job : jobs ) {
+      futures.add( executor.submit( () -> {
+        try {
+          export( job, result );
+        } catch ( Exception e ) {
+          result.addError( job, e );
+          log.logError( "Unable to export presentation '" + job.getPresentationName() + "'", e );
+        }
+      } ) );
+    }
+    try {
+      for ( Future<?> future : futures ) {
+        future.get();
+      }
+    } catch ( InterruptedException e ) {
+      for ( Future<?> future : futures ) {
+        future.cancel( true );
+      }
+      throw e;
+    } catch ( ExecutionException e ) {
+      // The tasks catch their own errors
+      //
+      throw new IllegalStateException( "Unexpected export error", e.getCause() );
+    }
+
+    result.setElapsedNanos( System.nanoTime() - start );
+    log.logBasic( "Exported " + jobs.size() + " presentations: " + result );
+    return result;
+  }
+
+  private void export( ExportJob job, ExportResult result ) throws HopException, LeanException, IOException {
+    File directory = job.getDirectory();
+    if ( !directory.exists() && !directory.mkdirs() ) {
+      throw new IOException( "Unable to create export directory " + directory );
+    }
+
+    // Layout and render produce all pages, converting them to SVG and rasterizing happens page by page
+    //
+    RenderedPresentation rendered = renderer.renderPages( job.getPresentationName(), job.getParameters() );
+    List<RenderedPage> pages = rendered.getPages();
+    List<LeanRenderPage> renderPages = rendered.getResults().getRenderPages();
+    for ( int i = 0; i < pages.size(); i++ ) {
+      if ( Thread.currentThread().isInterrupted() ) {
+        throw new InterruptedIOException( "Export of presentation '" + job.getPresentationName() + "' was interrupted after " + i + " of "
+          + pages.size() + " pages" );
+      }
+      RenderedPage page = pages.get( i );
+      File file = job.getFile( page.getPageIndex() );
+      switch ( job.getFormat() ) {
+        case PNG:
+          writePng( page, job.getScale(), file );
+          break;
+        case SVG:
+          writeSvg( page, file );
+          break;
+      }
+
+      // Let go of the page so that only the pages which aren't written yet are kept around
+      //
+      page.discard();
+      pages.set( i, null );
+      renderPages.set( i, null );
+      result.addFile( file );
+      if ( log.isDetailed() ) {
+        log.logDetailed( "Exported page " + ( page.getPageIndex() + 1 ) + " of presentation '" + job.getPresentationName() + "' to " + file );
+      }
+    }
+  }
+
+  private void writePng( RenderedPage page, double scale, File file ) throws LeanException, IOException {
+    LeanPage leanPage = page.getRenderPage().getPage();
+    int width = (int) Math.ceil( leanPage.getWidth() * scale );
+    int height = (int) Math.ceil( leanPage.getHeight() * scale );
+    ImageData imageData = page.rasterize( renderer, scale, 0, 0, width, height );
+
+    ImageLoader loader = new ImageLoader();
+    loader.data = new ImageData[] { imageData };
+    try ( OutputStream out = new BufferedOutputStream( new FileOutputStream( file ) ) ) {
+      loader.save( out, SWT.IMAGE_PNG );
+    }
+  }
+
+  private void writeSvg( RenderedPage page, File file ) throws LeanException, IOException {
+    // Straight from the graphics context of the page, there's no need to build an SVG document
+    //
+    String svgXml = page.getRenderPage().getSvgXml();
+    try ( Writer writer = new OutputStreamWriter( new BufferedOutputStream( new FileOutputStream( file ) ), StandardCharsets.UTF_8 ) ) {
+      writer.write( svgXml );
+    }
+  }
+
+  /**
+   * Stop the render threads, exports in progress are interrupted
+   */
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Gets renderer
+   *
+   * @return value of renderer
+   */
+  public PresentationRenderer getRenderer() {
+    return renderer;
+  }
+}
@@ -1,87 +1,241 @@
 package org.lean.viewer.swt;
 
-import org.apache.batik.anim.dom.SAXSVGDocumentFactory;
-import org.apache.batik.util.XMLResourceDescriptor;
 import org.apache.commons.lang.StringUtils;
-import org.apache.hop.core.SwtUniversalImageSvg;
-import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.logging.ILogChannel;
 import org.apache.hop.core.logging.ILoggingObject;
-import org.apache.hop.core.svg.SvgImage;
+import org.apache.hop.core.logging.LogChannel;
 import org.apache.hop.core.variables.IVariables;
 import org.apache.hop.metadata.api.IHopMetadataProvider;
-import org.apache.hop.metadata.api.IHopMetadataSerializer;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.KeyEvent;
+import org.eclipse.swt.events.KeyListener;
 import org.eclipse.swt.events.MouseEvent;
 import org.eclipse.swt.events.MouseListener;
 import org.eclipse.swt.events.MouseMoveListener;
 import org.eclipse.swt.events.PaintEvent;
 import org.eclipse.swt.events.PaintListener;
 import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.GC;
 import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.PaletteData;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.graphics.Rectangle;
 import org.eclipse.swt.layout.FormAttachment;
 import org.eclipse.swt.layout.FormData;
 import org.eclipse.swt.layout.FormLayout;
 import org.eclipse.swt.widgets.Canvas;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Listener;
+import org.eclipse.swt.widgets.ScrollBar;
+import org.lean.core.LeanGeometry;
 import org.lean.core.draw.DrawnItem;
 import org.lean.core.exception.LeanException;
 import org.lean.presentation.LeanPresentation;
 import org.lean.presentation.interaction.LeanInteraction;
 import org.lean.presentation.interaction.LeanInteractionAction;
-import org.lean.presentation.interaction.LeanInteractionMethod;
-import org.lean.presentation.interaction.LeanInteractionParameter;
 import org.lean.presentation.layout.LeanLayoutResults;
 import org.lean.presentation.layout.LeanRenderPage;
 import org.lean.presentation.page.LeanPage;
 import org.lean.presentation.variable.LeanParameter;
-import org.lean.render.IRenderContext;
-import org.lean.render.context.PresentationRenderContext;
-import org.w3c.dom.svg.SVGDocument;
 
-import java.io.IOException;
-import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
-public class LeanPresentationViewer extends Composite implements PaintListener, MouseListener, MouseMoveListener {
+public class LeanPresentationViewer extends Composite implements PaintListener, MouseListener, MouseMoveListener, KeyListener {
+
+  private static final double MIN_ZOOM = 0.1;
+  private static final double MAX_ZOOM = 8.0;
+  private static final double ZOOM_STEP = 1.25;
+  private static final int SCROLL_INCREMENT = 32;
+
+  // How long the size of the canvas or the zoom of the monitor has to stay the same before tiles are rasterized again
+  //
+  private static final int RESIZE_SETTLE_MS = 150;
+
+  // The width of the outline around hovered and selected items
+  //
+  private static final int HIGHLIGHT_WIDTH = 2;
 
   private final Composite parent;
   private final ILoggingObject loggingObject;
   private final IVariables variables;
   private final IHopMetadataProvider metadataProvider;
+  private final ILogChannel log;
+  private final Display display;
+  private final SwtResourceRegistry resources;
 
   private final Canvas wCanvas;
 
+  // Renders presentations away from the display thread
+  //
+  private final PresentationRenderService renderService;
+  private final boolean ownsRenderService;
+
+  // Where we've been and where we can go back to
+  //
+  private final NavigationHistory history;
+
   // The results of the rendering of a presentation
   //
   private String currentPresentationName;
+  private RenderedPresentation currentRendered;
   private LeanPresentation currentPresentation;
-  private LeanLayoutResults currentResults;
+  private RenderedPage currentPage;
   private LeanRenderPage currentRenderPage;
-  private String currentSvgXml;
-  private SvgImage currentSvgImage;
   private List<LeanParameter> currentParameters;
 
+  // The render in progress, if any
+  //
+  private CompletableFuture<RenderedPresentation> pendingRender;
+  private String pendingPresentationName;
+  private String renderErrorMessage;
+  private CompletableFuture<RenderedPage> pendingPage;
+
+  // Materializing the shown page again after its raster was released, without changing what's shown
+  //
+  private CompletableFuture<RenderedPage> rematerializing;
+
+  // The cursor shown over the canvas, only changed when needed
+  //
+  private int currentCursor = SWT.CURSOR_ARROW;
+
+  // The drawn item under the mouse cursor
+  //
+  private DrawnItem hoverItem;
+
+  // The page for which resolving the interactions failed, so that the error is logged once instead of on every move
+  //
+  private RenderedPage interactionErrorPage;
+
+  // Outlines drawn on top of the page: the hovered item if it has an interaction and the selected item
+  //
+  private boolean hoverHighlight;
+  private boolean hoverInteractive;
+  private DrawnItem selectedItem;
+
+  // Speculative rendering of the presentation a click on the hovered item would open
+  //
+  private boolean speculativeRendering;
+  private int speculativeDwellMs;
+  private Runnable speculativeTimer;
+  private CompletableFuture<RenderedPresentation> speculativeRender;
+
+  // The rasterized bitmap of the current render page, reused across paints
+  //
+  private Image cachedImage;
+  private PageImageKey cachedImageKey;
+
+  // Zoom and scroll position: the page is drawn at the zoom level, shifted by the origin
+  //
+  private ZoomMode zoomMode;
+  private double zoom;
+  private int originX;
+  private int originY;
+  private Point panStart;
+  private Point panOrigin;
+  private boolean updatingScrollBars;
+
+  // While resizing, the page is painted as a scaled copy of its bitmap until the size settles
+  //
+  private boolean resizing;
+  private Runnable resizeTimer;
+  private final Listener zoomChangedListener;
+
+  // Rendering the presentations reachable from the shown page while idle
+  //
+  private boolean warmUpEnabled;
+  private int warmUpDelayMs;
+  private long warmUpMaxBytes;
+  private final Map<PresentationKey, List<LeanParameter>> warmUpTargets;
+  private Runnable warmUpTimer;
+  private Runnable warmUpResumeTimer;
+  private WarmUp warmUp;
+
+  // The last known first page of the presentation being rendered, loaded from the disk cache
+  //
+  private PageSnapshot snapshot;
+  private Image snapshotImage;
+
+  // Filling in the first page of the presentation being rendered group by group of components, shown as a snapshot
+  //
+  private boolean progressiveRendering;
+  private CompletableFuture<ProgressiveRender> pendingProgressive;
+  private ProgressiveRender progressive;
+
+  // Periodic refresh of the data of the shown presentation, 0 seconds when disabled
+  //
+  private int autoRefreshSeconds;
+  private Runnable refreshTimer;
+  private CompletableFuture<RenderedPresentation> refreshRender;
+
+  // Sharp tiles of the page for zoom levels other than 100%
+  //
+  private final TileCache tileCache;
+  private final Map<TileKey, CompletableFuture<ImageData>> pendingTiles;
+
   /**
    * Render a presentation and allow interactions with it.
+   * The presentation is rendered in the background, a placeholder is shown until it's done.
    *
    * @param parent           The parent composite to use.
    * @param metadataProvider The metadata provider to use to load presentations and other objects
    * @param presentationName The starting presentation to render
    */
-  public LeanPresentationViewer( Composite parent, ILoggingObject loggingObject, IVariables variables, IHopMetadataProvider metadataProvider, String presentationName )
-    throws HopException, LeanException, IOException {
+  public LeanPresentationViewer( Composite parent, ILoggingObject loggingObject, IVariables variables, IHopMetadataProvider metadataProvider, String presentationName ) {
+    this( parent, loggingObject, variables, metadataProvider, presentationName, null, null );
+  }
+
+  /**
+   * Render a presentation with a render service shared with other viewers.
+   * Renders of the same presentation with the same parameter values are shared between the viewers.
+   * The render service isn't shut down when this viewer is disposed.
+   *
+   * @param parent           The parent composite to use.
+   * @param metadataProvider The metadata provider to use to load presentations and other objects
+   * @param presentationName The starting presentation to render
+   * @param parameters       The parameters to render the starting presentation with, can be null
+   * @param renderService    The render service to share or null to create one for this viewer
+   */
+  public LeanPresentationViewer( Composite parent, ILoggingObject loggingObject, IVariables variables, IHopMetadataProvider metadataProvider, String presentationName,
+                                 List<LeanParameter> parameters, PresentationRenderService renderService ) {
     super( parent, SWT.NO_BACKGROUND | SWT.NO_FOCUS | SWT.NO_MERGE_PAINTS | SWT.NO_RADIO_GROUP );
     this.loggingObject = loggingObject;
     this.parent = parent;
     this.variables = variables;
     this.metadataProvider = metadataProvider;
+    this.log = new LogChannel( loggingObject );
+    this.display = parent.getDisplay();
+    this.resources = SwtResourceRegistry.acquire( display );
     this.currentPresentationName = presentationName;
-    this.currentParameters = new ArrayList<>();
+    this.currentParameters = parameters == null ? new ArrayList<>() : new ArrayList<>( parameters );
+    this.ownsRenderService = renderService == null;
+    this.renderService = ownsRenderService ? new PresentationRenderService( loggingObject, metadataProvider ) : renderService;
+    this.history = new NavigationHistory();
+    this.speculativeRendering = false;
+    this.speculativeDwellMs = 300;
+    this.warmUpEnabled = false;
+    this.warmUpDelayMs = 1000;
+    this.warmUpMaxBytes = WarmUp.DEFAULT_MAX_BYTES;
+    this.warmUpTargets = WarmUp.newTargets();
+    this.zoomMode = ZoomMode.CUSTOM;
+    this.hoverHighlight = true;
+    this.zoom = 1.0;
+    this.tileCache = new TileCache( resources );
+    this.pendingTiles = new HashMap<>();
 
     setLayout( new FormLayout() );
 
-    wCanvas = new Canvas( this, SWT.NONE );
+    wCanvas = new Canvas( this, SWT.H_SCROLL | SWT.V_SCROLL );
     FormData fdCanvas = new FormData();
     fdCanvas.left = new FormAttachment( 0, 0 );
     fdCanvas.right = new FormAttachment( 100, 0 );
@@ -89,91 +243,1184 @@ public class LeanPresentationViewer extends Composite implements PaintListener,
     fdCanvas.bottom = new FormAttachment( 100, 0 );
     wCanvas.setLayoutData( fdCanvas );
 
-    // Load & render it
-    loadAndRenderPresentation( presentationName );
-
     wCanvas.addPaintListener( this );
     wCanvas.addMouseListener( this );
     wCanvas.addMouseMoveListener( this );
+    wCanvas.addKeyListener( this );
+    wCanvas.addListener( SWT.MouseExit, e -> setHoverItem( null ) );
+    wCanvas.addListener( SWT.MouseVerticalWheel, this::mouseWheel );
+    wCanvas.addListener( SWT.Resize, e -> {
+      if ( !updatingScrollBars ) {
+        resized();
+      }
+    } );
+    zoomChangedListener = e -> resized();
+    getShell().addListener( SWT.ZoomChanged, zoomChangedListener );
+    ScrollBar horizontalBar = wCanvas.getHorizontalBar();
+    if ( horizontalBar != null ) {
+      horizontalBar.addListener( SWT.Selection, e -> {
+        userActive();
+        scrollTo( horizontalBar.getSelection(), originY );
+      } );
+    }
+    ScrollBar verticalBar = wCanvas.getVerticalBar();
+    if ( verticalBar != null ) {
+      verticalBar.addListener( SWT.Selection, e -> {
+        userActive();
+        scrollTo( originX, verticalBar.getSelection() );
+      } );
+    }
+
+    addDisposeListener( e -> {
+      if ( pendingRender != null ) {
+        pendingRender.cancel( true );
+      }
+      if ( pendingPage != null ) {
+        pendingPage.cancel( true );
+      }
+      cancelSpeculativeRender();
+      cancelRefresh();
+      cancelWarmUp();
+      cancelProgressive();
+      clearSnapshot();
+      if ( resizeTimer != null ) {
+        display.timerExec( -1, resizeTimer );
+        resizeTimer = null;
+      }
+      if ( !getShell().isDisposed() ) {
+        getShell().removeListener( SWT.ZoomChanged, zoomChangedListener );
+      }
+      for ( CompletableFuture<ImageData> pendingTile : pendingTiles.values() ) {
+        pendingTile.cancel( true );
+      }
+      pendingTiles.clear();
+      if ( ownsRenderService ) {
+        renderService.shutdown();
+      }
+      disposeCachedImage();
+      tileCache.clear();
+      resources.release();
+    } );
+
+    // Load & render it
+    openPresentation( presentationName, currentParameters );
+  }
+
+  /**
+   * Open a presentation in the viewer.
+   * Loading, layout, data retrieval and rendering happen in the background. When done the presentation is shown on the
+   * display thread. A render which is still in progress is cancelled.
+   * Don't wait for the returned future on the display thread since it's completed there.
+   *
+   * @param presentationName The name of the presentation to open
+   * @param parameters       The parameters to render the presentation with
+   * @return A future which completes when the presentation is shown or fails if it couldn't be rendered.
+   */
+  public CompletableFuture<RenderedPresentation> openPresentation( String presentationName, List<LeanParameter> parameters ) {
+    return openPresentation( presentationName, parameters, 0, true );
+  }
+
+  private CompletableFuture<RenderedPresentation> openPresentation( String presentationName, List<LeanParameter> parameters, int pageIndex,
+                                                                     boolean recordHistory ) {
+    checkWidget();
+
+    if ( pendingRender != null ) {
+      pendingRender.cancel( true );
+    }
+    if ( refreshRender != null ) {
+      refreshRender.cancel( true );
+      refreshRender = null;
+    }
+    // Submit before cancelling the warm-up so that a presentation which is being warmed up joins that render
+    //
+    CompletableFuture<RenderedPresentation> render = renderService.submit( presentationName, parameters );
+    cancelWarmUp();
+    CompletableFuture<RenderedPresentation> shown = new CompletableFuture<>();
+    shown.whenComplete( ( rendered, error ) -> {
+      if ( shown.isCancelled() ) {
+        render.cancel( true );
+      }
+    } );
+
+    pendingRender = shown;
+    pendingPresentationName = presentationName;
+    renderErrorMessage = null;
+    cancelProgressive();
+    clearSnapshot();
+    wCanvas.redraw();
+
+    // Show the last known page from the disk cache while we wait
+    //
+    if ( !render.isDone() && renderService.getDiskCache() != null ) {
+      renderService.loadSnapshot( presentationName, parameters ).whenComplete( ( loaded, error ) -> {
+        if ( loaded == null || display.isDisposed() ) {
+          return;
+        }
+        display.asyncExec( () -> snapshotLoaded( shown, loaded ) );
+      } );
+    }
+
+    // Fill in the first page group by group of components while we wait
+    //
+    if ( !render.isDone() && progressiveRendering ) {
+      startProgressive( shown, presentationName, parameters );
+    }
+
+    render.whenComplete( ( rendered, error ) -> {
+      if ( display.isDisposed() ) {
+        return;
+      }
+      display.asyncExec( () -> renderFinished( shown, rendered, error, pageIndex, recordHistory ) );
+    } );
+
+    return shown;
+  }
+
+  private void renderFinished( CompletableFuture<RenderedPresentation> shown, RenderedPresentation rendered, Throwable error, int pageIndex,
+                               boolean recordHistory ) {
+    if ( isDisposed() || shown.isDone() ) {
+      // Disposed or cancelled in the meantime
+      //
+      return;
+    }
+    if ( pendingRender == shown ) {
+      pendingRender = null;
+      pendingPresentationName = null;
+      cancelProgressive();
+      clearSnapshot();
+    }
+    if ( error != null ) {
+      Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+      if ( !( cause instanceof CancellationException ) ) {
+        log.logError( "Unable to render presentation", cause );
+        renderErrorMessage = cause.getMessage();
+        wCanvas.redraw();
+      }
+      shown.completeExceptionally( cause );
+      return;
+    }
+
+    if ( recordHistory && currentRendered != null ) {
+      history.visit( getCurrentHistoryEntry() );
+    }
+    showRenderedPresentation( rendered, pageIndex );
+    shown.complete( rendered );
+  }
+
+  private void snapshotLoaded( CompletableFuture<RenderedPresentation> shown, PageSnapshot loaded ) {
+    if ( isDisposed() || pendingRender != shown ) {
+      // The render won the race or was abandoned
+      //
+      return;
+    }
+    // The complete page with its interactions is better than a partial one
+    //
+    cancelProgressive();
+    clearSnapshot();
+    snapshot = loaded;
+    wCanvas.redraw();
+  }
+
+  private void startProgressive( CompletableFuture<RenderedPresentation> shown, String presentationName, List<LeanParameter> parameters ) {
+    CompletableFuture<ProgressiveRender> started = renderService.submitProgressive( presentationName, parameters );
+    pendingProgressive = started;
+    started.whenComplete( ( split, error ) -> {
+      // Without groups or when splitting fails the regular render simply shows the page when it's done
+      //
+      if ( split == null ) {
+        return;
+      }
+      if ( display.isDisposed() ) {
+        split.cancel();
+        return;
+      }
+      display.asyncExec( () -> progressiveStarted( shown, started, split ) );
+    } );
+  }
+
+  /**
+   * Show the skeleton of the page: the page area without any components
+   */
+  private void progressiveStarted( CompletableFuture<RenderedPresentation> shown, CompletableFuture<ProgressiveRender> started,
+                                   ProgressiveRender split ) {
+    if ( isDisposed() || pendingRender != shown || pendingProgressive != started || snapshot != null ) {
+      split.cancel();
+      return;
+    }
+    pendingProgressive = null;
+    progressive = split;
+
+    // With a 32 bit direct palette a byte value in every channel gives a light gray
+    //
+    ImageData skeleton = new ImageData( split.getPageWidth(), split.getPageHeight(), 32, new PaletteData( 0xFF0000, 0x00FF00, 0x0000FF ) );
+    Arrays.fill( skeleton.data, (byte) 0xF0 );
+    snapshot = new PageSnapshot( split.getPresentationName(), skeleton, new ArrayList<>() );
+    wCanvas.redraw();
+
+    for ( CompletableFuture<ComponentRegion> region : split.getRegions() ) {
+      region.whenComplete( ( rendered, error ) -> {
+        if ( rendered == null || display.isDisposed() ) {
+          return;
+        }
+        display.asyncExec( () -> regionRendered( split, rendered ) );
+      } );
+    }
+  }
+
+  /**
+   * Copy a group of components which is done into the skeleton and repaint only its area
+   */
+  private void regionRendered( ProgressiveRender split, ComponentRegion region ) {
+    if ( isDisposed() || progressive != split || snapshot == null ) {
+      return;
+    }
+    region.copyTo( snapshot.getImageData() );
+    Rectangle bounds = region.getBounds();
+    if ( snapshotImage != null ) {
+      // Only the areas of the components: the rest of the bounds can overlap with other groups
+      //
+      Image regionImage = resources.createImage( region.getImageData() );
+      GC gc = new GC( snapshotImage );
+      for ( Rectangle area : region.getAreas() ) {
+        gc.drawImage( regionImage, area.x - bounds.x, area.y - bounds.y, area.width, area.height, area.x, area.y, area.width, area.height );
+      }
+      gc.dispose();
+      resources.disposeImage( regionImage );
+    }
+    double scale = getScale();
+    wCanvas.redraw( (int) Math.floor( bounds.x * scale ) - originX - 1, (int) Math.floor( bounds.y * scale ) - originY - 1,
+      (int) Math.ceil( bounds.width * scale ) + 2, (int) Math.ceil( bounds.height * scale ) + 2, false );
+  }
+
+  private void cancelProgressive() {
+    if ( pendingProgressive != null ) {
+      pendingProgressive.cancel( true );
+      pendingProgressive = null;
+    }
+    if ( progressive != null ) {
+      progressive.cancel();
+      progressive = null;
+    }
+  }
+
+  private void clearSnapshot() {
+    snapshot = null;
+    resources.disposeImage( snapshotImage );
+    snapshotImage = null;
+  }
+
+  private void showRenderedPresentation( RenderedPresentation rendered, int pageIndex ) {
+    currentRendered = rendered;
+    currentPresentationName = rendered.getPresentationName();
+    currentPresentation = rendered.getPresentation();
+    currentParameters = rendered.getParameters();
+
+    // Don't keep a page of the previous presentation around
+    //
+    disposeCachedImage();
+    currentPage = null;
+    currentRenderPage = null;
+    clearHighlights();
+
+    showPage( pageIndex );
+  }
+
+  private NavigationHistory.Entry getCurrentHistoryEntry() {
+    if ( currentRendered == null ) {
+      return null;
+    }
+    return new NavigationHistory.Entry( currentRendered, Math.max( 0, getCurrentPageIndex() ) );
+  }
+
+  /**
+   * Go back to the previously shown presentation and page.
+   * If the render of the presentation is still retained in the history it's shown right away, otherwise it's rendered
+   * again.
+   *
+   * @return true if there was something to go back to
+   */
+  public boolean back() {
+    checkWidget();
+    return restore( history.back( getCurrentHistoryEntry() ) );
+  }
+
+  /**
+   * Go forward again after going back.
+   *
+   * @return true if there was something to go forward to
+   */
+  public boolean forward() {
+    checkWidget();
+    return restore( history.forward( getCurrentHistoryEntry() ) );
+  }
+
+  private boolean restore( NavigationHistory.Entry entry ) {
+    if ( entry == null ) {
+      return false;
+    }
+    if ( entry.getRendered() == null ) {
+      openPresentation( entry.getPresentationName(), entry.getParameters(), entry.getPageIndex(), false );
+      return true;
+    }
+
+    if ( pendingRender != null ) {
+      pendingRender.cancel( true );
+      pendingRender = null;
+      pendingPresentationName = null;
+    }
+    renderErrorMessage = null;
+    showRenderedPresentation( entry.getRendered(), entry.getPageIndex() );
+    return true;
+  }
+
+  /**
+   * Show a page of the current presentation.
+   * If the page isn't materialized yet this happens in the background, the previous page stays visible meanwhile.
+   * Afterwards the next and previous pages are prefetched.
+   *
+   * @param pageIndex The index of the page to show, starting at 0
+   * @return A future which completes when the page is shown
+   */
+  public CompletableFuture<RenderedPage> showPage( int pageIndex ) {
+    checkWidget();
+    if ( currentRendered == null ) {
+      CompletableFuture<RenderedPage> failed = new CompletableFuture<>();
+      failed.completeExceptionally( new IllegalStateException( "No presentation is shown" ) );
+      return failed;
+    }
+    int index = Math.max( 0, Math.min( pageIndex, currentRendered.getPageCount() - 1 ) );
+
+    if ( pendingPage != null ) {
+      pendingPage.cancel( true );
+      pendingPage = null;
+    }
+
+    RenderedPresentation rendered = currentRendered;
+    RenderedPage page = rendered.getPage( index );
+    CompletableFuture<RenderedPage> shown = new CompletableFuture<>();
+    CompletableFuture<RenderedPage> materialized = renderService.materialize( page );
+    shown.whenComplete( ( value, error ) -> {
+      if ( shown.isCancelled() ) {
+        materialized.cancel( true );
+      }
+    } );
+    if ( materialized.isDone() ) {
+      pageMaterialized( rendered, shown, page, null );
+    } else {
+      pendingPage = shown;
+      wCanvas.redraw();
+      materialized.whenComplete( ( value, error ) -> {
+        if ( !display.isDisposed() ) {
+          display.asyncExec( () -> pageMaterialized( rendered, shown, page, error ) );
+        }
+      } );
+    }
+    return shown;
+  }
+
+  private void pageMaterialized( RenderedPresentation rendered, CompletableFuture<RenderedPage> shown, RenderedPage page, Throwable error ) {
+    if ( isDisposed() || shown.isDone() || rendered != currentRendered ) {
+      shown.cancel( false );
+      return;
+    }
+    if ( pendingPage == shown ) {
+      pendingPage = null;
+    }
+    if ( error != null ) {
+      log.logError( "Unable to render page " + ( page.getPageIndex() + 1 ), error );
+      renderErrorMessage = error.getMessage();
+      wCanvas.redraw();
+      shown.completeExceptionally( error );
+      return;
+    }
+
+    // A page rendered again with other parameter values keeps the zoomed tiles which didn't change
+    //
+    RenderedPage basePage = page.getBasePage();
+    if ( basePage != null && page.getDamage() != null ) {
+      tileCache.inherit( basePage, page, page.getDamage() );
+    }
+
+    disposeCachedImage();
+    clearHighlights();
+    currentPage = page;
+    currentRenderPage = page.getRenderPage();
+    originX = 0;
+    originY = 0;
+    updateZoom();
+    shown.complete( page );
+
+    // Prefetch the neighbours so that paging through the presentation doesn't wait
+    //
+    int index = page.getPageIndex();
+    if ( index + 1 < rendered.getPageCount() ) {
+      renderService.materialize( rendered.getPage( index + 1 ) );
+    }
+    if ( index > 0 ) {
+      renderService.materialize( rendered.getPage( index - 1 ) );
+    }
+    scheduleWarmUp();
+  }
+
+  /**
+   * Once the shown page has been idle for a while, render the presentations which can be opened from it ahead of time:
+   * every presentation with the parameter values clicking each item passes on, followed by the configured targets.
+   * This happens one presentation at a time at low priority until the memory budget is used up. Any mouse, key or
+   * scroll activity restarts the idle time, see {@link #userActive()}.
+   */
+  private void scheduleWarmUp() {
+    cancelWarmUp();
+    if ( !warmUpEnabled ) {
+      return;
+    }
+    warmUpTimer = () -> {
+      warmUpTimer = null;
+      if ( isDisposed() || currentPage == null || pendingRender != null ) {
+        return;
+      }
+      Map<PresentationKey, List<LeanParameter>> targets = WarmUp.newTargets();
+      try {
+        WarmUp.findTargets( currentPresentation, currentPage, targets );
+      } catch ( LeanException e ) {
+        log.logError( "Unable to find the presentations to warm up", e );
+      }
+      for ( Map.Entry<PresentationKey, List<LeanParameter>> target : warmUpTargets.entrySet() ) {
+        targets.putIfAbsent( target.getKey(), target.getValue() );
+      }
+      targets.remove( new PresentationKey( currentPresentationName, currentParameters ) );
+
+      // Don't push the shown presentation out of the cache
+      //
+      int maxTargets = Math.max( 0, renderService.getCache().getMaxEntries() / 2 );
+      Map<PresentationKey, List<LeanParameter>> limited = WarmUp.newTargets();
+      for ( Map.Entry<PresentationKey, List<LeanParameter>> target : targets.entrySet() ) {
+        if ( limited.size() >= maxTargets ) {
+          break;
+        }
+        limited.put( target.getKey(), target.getValue() );
+      }
+
+      warmUp = new WarmUp( renderService, limited, warmUpMaxBytes );
+      warmUp.start();
+    };
+    display.timerExec( warmUpDelayMs, warmUpTimer );
+  }
+
+  /**
+   * The user is moving the mouse, typing or scrolling: postpone warming up until the page has been idle for a while
+   * again, and don't start new warm-up renders in the meantime.
+   */
+  private void userActive() {
+    if ( warmUpTimer != null ) {
+      // Scheduling the same runnable again restarts its timer
+      //
+      display.timerExec( warmUpDelayMs, warmUpTimer );
+    }
+    if ( warmUp != null && !warmUp.isDone() ) {
+      warmUp.pause();
+      if ( warmUpResumeTimer == null ) {
+        WarmUp paused = warmUp;
+        warmUpResumeTimer = () -> {
+          warmUpResumeTimer = null;
+          if ( warmUp == paused ) {
+            paused.resume();
+          }
+        };
+      }
+      display.timerExec( warmUpDelayMs, warmUpResumeTimer );
+    }
+  }
+
+  private void cancelWarmUp() {
+    if ( warmUpTimer != null ) {
+      display.timerExec( -1, warmUpTimer );
+      warmUpTimer = null;
+    }
+    if ( warmUpResumeTimer != null ) {
+      display.timerExec( -1, warmUpResumeTimer );
+      warmUpResumeTimer = null;
+    }
+    if ( warmUp != null ) {
+      warmUp.cancel();
+      warmUp = null;
+    }
+  }
+
+  /**
+   * Outline a drawn item of the current page as selected. Clicking an item with an interaction selects it.
+   * The selection is cleared when another page is shown.
+   *
+   * @param drawnItem The item to select or null to clear the selection
+   */
+  public void setSelectedItem( DrawnItem drawnItem ) {
+    checkWidget();
+    if ( drawnItem == selectedItem ) {
+      return;
+    }
+    redrawHighlight( getHighlightArea( selectedItem ) );
+    selectedItem = drawnItem;
+    redrawHighlight( getHighlightArea( selectedItem ) );
+  }
+
+  /**
+   * Gets selectedItem
+   *
+   * @return value of selectedItem
+   */
+  public DrawnItem getSelectedItem() {
+    return selectedItem;
+  }
+
+  /**
+   * Outline the item under the mouse cursor when it has an interaction, with its item value as tooltip
+   *
+   * @param hoverHighlight true to highlight the hovered item, the default
+   */
+  public void setHoverHighlight( boolean hoverHighlight ) {
+    checkWidget();
+    this.hoverHighlight = hoverHighlight;
+    DrawnItem drawnItem = hoverItem;
+    setHoverItem( null );
+    setHoverItem( drawnItem );
+  }
+
+  /**
+   * Gets hoverHighlight
+   *
+   * @return value of hoverHighlight
+   */
+  public boolean isHoverHighlight() {
+    return hoverHighlight;
+  }
+
+  /**
+   * Fill in the first page of a presentation which is being opened group by group of components, the fastest first,
+   * instead of waiting for the complete page. Every group is laid out and rendered separately next to the complete
+   * presentation, so this costs extra work and data retrieval. It pays off for pages with slow components which
+   * don't depend on each other.
+   *
+   * @param progressiveRendering true to enable progressive rendering
+   */
+  public void setProgressiveRendering( boolean progressiveRendering ) {
+    this.progressiveRendering = progressiveRendering;
+  }
+
+  /**
+   * Gets progressiveRendering
+   *
+   * @return value of progressiveRendering
+   */
+  public boolean isProgressiveRendering() {
+    return progressiveRendering;
+  }
+
+  /**
+   * Render the presentations reachable from the shown page ahead of time while the viewer is idle
+   *
+   * @param warmUpEnabled true to enable warming up
+   */
+  public void setWarmUpEnabled( boolean warmUpEnabled ) {
+    checkWidget();
+    this.warmUpEnabled = warmUpEnabled;
+    if ( warmUpEnabled && currentPage != null ) {
+      scheduleWarmUp();
+    } else {
+      cancelWarmUp();
+    }
+  }
+
+  /**
+   * Gets warmUpEnabled
+   *
+   * @return value of warmUpEnabled
+   */
+  public boolean isWarmUpEnabled() {
+    return warmUpEnabled;
+  }
+
+  /**
+   * Also warm up a presentation with a particular set of parameter values, whenever warming up
+   *
+   * @param presentationName The name of the presentation
+   * @param parameters       The parameters to render it with
+   */
+  public void addWarmUpTarget( String presentationName, List<LeanParameter> parameters ) {
+    List<LeanParameter> copy = parameters == null ? new ArrayList<>() : new ArrayList<>( parameters );
+    warmUpTargets.put( new PresentationKey( presentationName, copy ), copy );
+  }
+
+  /**
+   * Gets warmUpDelayMs
+   *
+   * @return value of warmUpDelayMs
+   */
+  public int getWarmUpDelayMs() {
+    return warmUpDelayMs;
+  }
+
+  /**
+   * @param warmUpDelayMs The time the shown page needs to be idle before warming up starts
+   */
+  public void setWarmUpDelayMs( int warmUpDelayMs ) {
+    this.warmUpDelayMs = warmUpDelayMs;
+  }
+
+  /**
+   * Gets warmUpMaxBytes
+   *
+   * @return value of warmUpMaxBytes
+   */
+  public long getWarmUpMaxBytes() {
+    return warmUpMaxBytes;
+  }
+
+  /**
+   * @param warmUpMaxBytes The memory budget of the presentations rendered ahead of time
+   */
+  public void setWarmUpMaxBytes( long warmUpMaxBytes ) {
+    this.warmUpMaxBytes = warmUpMaxBytes;
+  }
+
+  /**
+   * Gets warmUp
+   *
+   * @return The warm up in progress or finished for the shown page, null if there is none
+   */
+  public WarmUp getWarmUp() {
+    return warmUp;
+  }
+
+  /**
+   * Refresh the shown presentation periodically: it's laid out and rendered again in the background, including the
+   * retrieval of its data. The new raster of the shown page is compared with the current one and only the areas which
+   * changed are repainted. When nothing changed nothing is repainted.
+   *
+   * @param seconds The number of seconds between the end of a refresh and the start of the next one, 0 to disable
+   */
+  public void setAutoRefreshInterval( int seconds ) {
+    checkWidget();
+    autoRefreshSeconds = Math.max( 0, seconds );
+    cancelRefresh();
+    scheduleRefresh();
+  }
+
+  /**
+   * @return The number of seconds between refreshes of the shown presentation, 0 when disabled
+   */
+  public int getAutoRefreshInterval() {
+    return autoRefreshSeconds;
+  }
+
+  private void scheduleRefresh() {
+    if ( autoRefreshSeconds <= 0 || refreshTimer != null || isDisposed() ) {
+      return;
+    }
+    refreshTimer = this::refresh;
+    display.timerExec( autoRefreshSeconds * 1000, refreshTimer );
+  }
+
+  private void cancelRefresh() {
+    if ( refreshTimer != null ) {
+      display.timerExec( -1, refreshTimer );
+      refreshTimer = null;
+    }
+    if ( refreshRender != null ) {
+      refreshRender.cancel( true );
+      refreshRender = null;
+    }
+  }
+
+  /**
+   * Render the shown presentation again, bypassing the cache, and compare the shown page with the current raster
+   */
+  private void refresh() {
+    refreshTimer = null;
+    if ( isDisposed() ) {
+      return;
+    }
+    if ( currentPage == null || pendingRender != null || pendingPage != null || refreshRender != null ) {
+      // Busy, try again later
+      //
+      scheduleRefresh();
+      return;
+    }
+
+    RenderedPresentation base = currentRendered;
+    RenderedPage basePage = currentPage;
+    int pageIndex = basePage.getPageIndex();
+
+    // Hold on to the shown raster until the comparison is done, even if the raster budget releases it from the page.
+    // If it's released already, rasterize it again next to the refresh so that only the changes need repainting.
+    //
+    ImageData shownRaster = basePage.getImageData();
+    CompletableFuture<ImageData> before = shownRaster != null ? CompletableFuture.completedFuture( shownRaster )
+      : renderService.materialize( basePage ).thenApply( RenderedPage::getImageData ).exceptionally( e -> null );
+
+    CompletableFuture<RenderedPresentation> render = renderService.submit( currentPresentationName, currentParameters, false );
+    refreshRender = render;
+    render
+      .thenCompose( rendered -> renderService.materialize( rendered.getPage( Math.min( pageIndex, rendered.getPageCount() - 1 ) ) ) )
+      .whenComplete( ( page, error ) -> before.thenAccept( beforeRaster -> {
+        PageDamage damage = null;
+        if ( error == null && page.getPageIndex() == pageIndex ) {
+          if ( beforeRaster == null ) {
+            log.logBasic( "The previous raster of the page isn't available, showing the refreshed page completely" );
+          } else {
+            damage = RasterDiff.compare( beforeRaster, page.getImageData(), TileCache.TILE_SIZE );
+          }
+        }
+        if ( display.isDisposed() ) {
+          return;
+        }
+        PageDamage pageDamage = damage;
+        display.asyncExec( () -> refreshFinished( render, base, basePage, page, pageDamage, error ) );
+      } ) );
+  }
+
+  private void refreshFinished( CompletableFuture<RenderedPresentation> render, RenderedPresentation base, RenderedPage basePage, RenderedPage page,
+                                PageDamage damage, Throwable error ) {
+    if ( isDisposed() ) {
+      return;
+    }
+    if ( refreshRender == render ) {
+      refreshRender = null;
+    }
+    scheduleRefresh();
+
+    if ( error != null ) {
+      Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+      if ( !( cause instanceof CancellationException ) ) {
+        log.logError( "Unable to refresh presentation, the previous render is still shown", cause );
+      }
+      return;
+    }
+    if ( currentRendered != base || currentPage != basePage ) {
+      // The user moved on in the meantime
+      //
+      return;
+    }
+
+    RenderedPresentation rendered = render.getNow( null );
+    if ( damage == null ) {
+      // The page changed size, there's nothing to compare
+      //
+      showRenderedPresentation( rendered, page.getPageIndex() );
+      return;
+    }
+
+    tileCache.inherit( basePage, page, damage );
+    currentRendered = rendered;
+    currentPresentation = rendered.getPresentation();
+    currentParameters = rendered.getParameters();
+    currentPage = page;
+    currentRenderPage = page.getRenderPage();
+    clearHighlights();
+
+    if ( damage.isEmpty() ) {
+      // The bitmap of the previous render is identical, keep it for the new page
+      //
+      if ( cachedImage != null && cachedImageKey != null ) {
+        cachedImageKey = new PageImageKey( currentRenderPage, cachedImageKey.getWidth(), cachedImageKey.getHeight(), cachedImageKey.getDeviceZoom() );
+      }
+      return;
+    }
+
+    disposeCachedImage();
+    double scale = getScale();
+    for ( Rectangle area : damage.getAreas() ) {
+      int x = (int) Math.floor( area.x * scale ) - originX;
+      int y = (int) Math.floor( area.y * scale ) - originY;
+      wCanvas.redraw( x, y, (int) Math.ceil( area.width * scale ) + 1, (int) Math.ceil( area.height * scale ) + 1, false );
+    }
+  }
+
+  /**
+   * Show the next page of the presentation, if there is one
+   */
+  public void nextPage() {
+    if ( currentPage != null ) {
+      showPage( currentPage.getPageIndex() + 1 );
+    }
+  }
+
+  /**
+   * Show the previous page of the presentation, if there is one
+   */
+  public void previousPage() {
+    if ( currentPage != null ) {
+      showPage( currentPage.getPageIndex() - 1 );
+    }
+  }
+
+  /**
+   * @return The number of pages of the presentation shown or 0 if nothing is shown
+   */
+  public int getPageCount() {
+    return currentRendered == null ? 0 : currentRendered.getPageCount();
+  }
+
+  /**
+   * @return The index of the page shown, starting at 0, or -1 if nothing is shown
+   */
+  public int getCurrentPageIndex() {
+    return currentPage == null ? -1 : currentPage.getPageIndex();
+  }
+
+  /**
+   * Set the maximum memory used by the rasters of the pages kept in memory.
+   *
+   * @param maxBytes The maximum number of bytes
+   */
+  public void setPageMemoryBudget( long maxBytes ) {
+    renderService.getRasterBudget().setMaxBytes( maxBytes );
+  }
+
+  /**
+   * Paint the presentation...
+   * Only the damaged area of the event is painted. At 100% it's copied from the cached bitmap of the current page,
+   * at other zoom levels from rasterized tiles. Tiles which aren't rasterized yet are rendered in the background and
+   * painted as a scaled copy of the page bitmap meanwhile.
+   *
+   * @param paintEvent
+   */
+  @Override public void paintControl( PaintEvent paintEvent ) {
+    RenderMetrics metrics = renderService.getRenderer().getMetrics();
+    long start = metrics.start();
+    paint( paintEvent );
+    metrics.stop( currentPresentationName, RenderStage.PAINT, start );
+  }
+
+  private void paint( PaintEvent paintEvent ) {
+    GC gc = paintEvent.gc;
+    if ( snapshot != null ) {
+      paintSnapshot( gc );
+      return;
+    }
+    Image image = currentPage == null ? null : getPageImage();
+    if ( image == null ) {
+      paintPlaceholder( gc );
+      return;
+    }
+
+    try {
+      Point content = getContentSize();
+
+      // Only paint the part of the page which needs to be repainted
+      //
+      Rectangle damage = new Rectangle( paintEvent.x, paintEvent.y, paintEvent.width, paintEvent.height )
+        .intersection( new Rectangle( -originX, -originY, content.x, content.y ) );
+      if ( !damage.isEmpty() ) {
+        gc.setBackground( resources.getColor( 255, 255, 255 ) );
+        gc.setForeground( resources.getColor( 0, 0, 0 ) );
+        gc.fillRectangle( damage );
+
+        int scaleKey = getScaleKey();
+        if ( scaleKey == 1000 && getDeviceZoom() == 100 ) {
+          Rectangle source = new Rectangle( damage.x + originX, damage.y + originY, damage.width, damage.height ).intersection( image.getBounds() );
+          if ( !source.isEmpty() ) {
+            gc.drawImage( image, source.x, source.y, source.width, source.height, source.x - originX, source.y - originY, source.width, source.height );
+          }
+        } else {
+          paintTiles( gc, damage, image, scaleKey, content );
+        }
+      }
+    } catch ( Exception e ) {
+      throw new RuntimeException( "Unable to paint rendered page", e );
+    }
+
+    paintHighlights( gc );
+
+    if ( pendingRender != null || pendingPage != null || renderErrorMessage != null ) {
+      paintStatus( gc );
+    }
+  }
+
+  private void paintTiles( GC gc, Rectangle damage, Image pageImage, int scaleKey, Point content ) {
+    int deviceZoom = getDeviceZoom();
+    int tileSize = TileCache.TILE_SIZE;
+    int firstColumn = ( damage.x + originX ) / tileSize;
+    int lastColumn = ( damage.x + damage.width - 1 + originX ) / tileSize;
+    int firstRow = ( damage.y + originY ) / tileSize;
+    int lastRow = ( damage.y + damage.height - 1 + originY ) / tileSize;
+
+    for ( int row = firstRow; row <= lastRow; row++ ) {
+      for ( int column = firstColumn; column <= lastColumn; column++ ) {
+        Rectangle tile = new Rectangle( column * tileSize, row * tileSize,
+          Math.min( tileSize, content.x - column * tileSize ), Math.min( tileSize, content.y - row * tileSize ) );
+        if ( tile.width <= 0 || tile.height <= 0 ) {
+          continue;
+        }
+        TileKey key = new TileKey( currentPage, scaleKey, deviceZoom, column, row );
+        Image tileImage = tileCache.get( key );
+        renderService.getRenderer().getMetrics().recordTileCacheLookup( tileImage != null );
+        if ( tileImage != null ) {
+          gc.drawImage( tileImage, tile.x - originX, tile.y - originY );
+        } else {
+          // Only rasterize at the final size once resizing is over
+          //
+          if ( !resizing ) {
+            requestTile( key, tile );
+          }
+          paintScaledPageImage( gc, pageImage, tile, key.getScale() );
+        }
+      }
+    }
+  }
+
+  /**
+   * Paint the area of a tile by scaling the page bitmap, a quick and blurry stand-in for the sharp tile.
+   */
+  private void paintScaledPageImage( GC gc, Image pageImage, Rectangle tile, double scale ) {
+    Rectangle bounds = pageImage.getBounds();
+    int sourceX = (int) Math.floor( tile.x / scale );
+    int sourceY = (int) Math.floor( tile.y / scale );
+    int sourceWidth = Math.min( (int) Math.ceil( tile.width / scale ) + 1, bounds.width - sourceX );
+    int sourceHeight = Math.min( (int) Math.ceil( tile.height / scale ) + 1, bounds.height - sourceY );
+    if ( sourceWidth <= 0 || sourceHeight <= 0 ) {
+      return;
+    }
+    gc.drawImage( pageImage, sourceX, sourceY, sourceWidth, sourceHeight,
+      (int) Math.round( sourceX * scale ) - originX, (int) Math.round( sourceY * scale ) - originY,
+      (int) Math.round( sourceWidth * scale ), (int) Math.round( sourceHeight * scale ) );
+  }
+
+  private void requestTile( TileKey key, Rectangle tile ) {
+    if ( pendingTiles.containsKey( key ) ) {
+      return;
+    }
+    CompletableFuture<ImageData> future = renderService.rasterizeTile( key.getPage(), key.getPixelScale(), key.toPixels( tile ) );
+    pendingTiles.put( key, future );
+    future.whenComplete( ( imageData, error ) -> {
+      if ( !display.isDisposed() ) {
+        display.asyncExec( () -> tileRasterized( key, tile, future, imageData, error ) );
+      }
+    } );
+  }
+
+  private void tileRasterized( TileKey key, Rectangle tile, CompletableFuture<ImageData> future, ImageData imageData, Throwable error ) {
+    if ( isDisposed() || pendingTiles.get( key ) != future ) {
+      // Disposed or cancelled in the meantime
+      //
+      return;
+    }
+    pendingTiles.remove( key );
+    if ( error != null ) {
+      log.logError( "Unable to rasterize tile of page " + ( key.getPage().getPageIndex() + 1 ), error );
+      return;
+    }
+    tileCache.put( key, resources.createImage( imageData, key.getDeviceZoom() ) );
+    if ( key.getPage() == currentPage && key.getScaleKey() == getScaleKey() && key.getDeviceZoom() == getDeviceZoom() ) {
+      wCanvas.redraw( tile.x - originX, tile.y - originY, tile.width, tile.height, false );
+    }
+  }
+
+  /**
+   * Stop rasterizing tiles which aren't visible anymore after scrolling or zooming
+   */
+  private void cancelInvisibleTiles() {
+    if ( pendingTiles.isEmpty() ) {
+      return;
+    }
+    Rectangle client = wCanvas.getClientArea();
+    Rectangle visible = new Rectangle( originX, originY, client.width, client.height );
+    int scaleKey = getScaleKey();
+    int deviceZoom = getDeviceZoom();
+    int tileSize = TileCache.TILE_SIZE;
+    Iterator<Map.Entry<TileKey, CompletableFuture<ImageData>>> iterator = pendingTiles.entrySet().iterator();
+    while ( iterator.hasNext() ) {
+      Map.Entry<TileKey, CompletableFuture<ImageData>> entry = iterator.next();
+      TileKey key = entry.getKey();
+      Rectangle tile = new Rectangle( key.getColumn() * tileSize, key.getRow() * tileSize, tileSize, tileSize );
+      if ( key.getPage() != currentPage || key.getScaleKey() != scaleKey || key.getDeviceZoom() != deviceZoom || !tile.intersects( visible ) ) {
+        iterator.remove();
+        entry.getValue().cancel( true );
+      }
+    }
+  }
 
+  /**
+   * Outline the hovered item if it has an interaction and the selected item on top of the page
+   */
+  private void paintHighlights( GC gc ) {
+    if ( hoverInteractive ) {
+      paintHighlight( gc, hoverItem, resources.getColor( 0, 120, 215 ) );
+    }
+    if ( selectedItem != null ) {
+      paintHighlight( gc, selectedItem, resources.getColor( 255, 140, 0 ) );
+    }
   }
 
-  private void loadAndRenderPresentation( String presentationName ) throws HopException, LeanException, IOException {
-    // Let's load the presentation and render it then...
-    //
-    this.currentPresentationName = presentationName;
-    IHopMetadataSerializer<LeanPresentation> presentationSerializer = metadataProvider.getSerializer( LeanPresentation.class );
-    currentPresentation = presentationSerializer.load( presentationName );
-    if ( currentPresentation == null ) {
-      throw new HopException( "Unable to find presentation '" + presentationName + "'" );
+  private void paintHighlight( GC gc, DrawnItem drawnItem, Color color ) {
+    Rectangle area = getHighlightArea( drawnItem );
+    if ( area == null ) {
+      return;
     }
+    gc.setForeground( color );
+    gc.setLineWidth( HIGHLIGHT_WIDTH );
+    gc.drawRectangle( area );
+    gc.setLineWidth( 0 );
+  }
 
-    IRenderContext renderContext = new PresentationRenderContext( currentPresentation );
+  /**
+   * @return The bounds of a drawn item on the canvas or null if it has no geometry
+   */
+  private Rectangle getHighlightArea( DrawnItem drawnItem ) {
+    LeanGeometry geometry = drawnItem == null ? null : drawnItem.getGeometry();
+    if ( geometry == null ) {
+      return null;
+    }
+    double scale = getScale();
+    int x = (int) Math.floor( geometry.getX() * scale ) - originX;
+    int y = (int) Math.floor( geometry.getY() * scale ) - originY;
+    return new Rectangle( x, y, (int) Math.ceil( geometry.getWidth() * scale ), (int) Math.ceil( geometry.getHeight() * scale ) );
+  }
 
-    // Calculate the layout (also grabs data)
-    currentResults = currentPresentation.doLayout( loggingObject, renderContext, metadataProvider, currentParameters );
+  private void redrawHighlight( Rectangle area ) {
+    if ( area == null ) {
+      return;
+    }
+    int margin = HIGHLIGHT_WIDTH + 1;
+    wCanvas.redraw( area.x - margin, area.y - margin, area.width + 2 * margin, area.height + 2 * margin, false );
+  }
 
-    // render
-    currentPresentation.render( currentResults, metadataProvider );
+  private boolean isInteractive( DrawnItem drawnItem ) {
+    try {
+      return drawnItem != null && currentPage != null && currentPage.getInteractionMap().hasInteraction( drawnItem );
+    } catch ( LeanException e ) {
+      return false;
+    }
+  }
 
-    if ( currentResults.getRenderPages().isEmpty() ) {
-      throw new HopException( "There was no output after rendering (0 pages) of presentation " + presentationName );
+  /**
+   * @return The value a click on the item passes on as its item value, null if it has none
+   */
+  private static String getItemValue( DrawnItem drawnItem ) {
+    if ( drawnItem.getContext() == null || drawnItem.getContext().getValue() == null ) {
+      return null;
     }
+    return String.valueOf( drawnItem.getContext().getValue() );
+  }
 
-    // Take the first page...
-    //
-    currentRenderPage = currentResults.getRenderPages().get( 0 );
+  private void clearHighlights() {
+    setHoverItem( null );
+    setSelectedItem( null );
+  }
 
-    // Get the XML
-    //
-    currentSvgXml = currentRenderPage.getSvgXml();
+  /**
+   * Paint the last known page from the disk cache or the page being filled in progressively, scaled as a whole, with the
+   * render status on top.
+   */
+  private void paintSnapshot( GC gc ) {
+    gc.setBackground( display.getSystemColor( SWT.COLOR_WHITE ) );
+    gc.fillRectangle( wCanvas.getClientArea() );
+    if ( snapshotImage == null ) {
+      snapshotImage = resources.createImage( snapshot.getImageData() );
+    }
+    Rectangle bounds = snapshotImage.getBounds();
+    double scale = getScale();
+    gc.drawImage( snapshotImage, 0, 0, bounds.width, bounds.height, -originX, -originY,
+      (int) Math.ceil( bounds.width * scale ), (int) Math.ceil( bounds.height * scale ) );
+    paintStatus( gc );
+  }
 
-    // Load it back as a SvgDocument...
-    //
-    String parser = XMLResourceDescriptor.getXMLParserClassName();
-    SAXSVGDocumentFactory f = new SAXSVGDocumentFactory( parser );
-    SVGDocument document = f.createSVGDocument( "", new StringReader( currentSvgXml ) ); ;
+  /**
+   * Nothing was rendered yet: fill the canvas and say what's going on.
+   */
+  private void paintPlaceholder( GC gc ) {
+    Rectangle area = wCanvas.getClientArea();
+    gc.setBackground( display.getSystemColor( SWT.COLOR_WHITE ) );
+    gc.fillRectangle( area );
+    paintStatus( gc );
+  }
 
-    // Get it as an SVG image
-    currentSvgImage = new SvgImage( document );
+  /**
+   * Draw a small banner with the render status in the top left corner.
+   */
+  private void paintStatus( GC gc ) {
+    String message;
+    if ( renderErrorMessage != null ) {
+      message = "Error rendering presentation: " + renderErrorMessage;
+    } else if ( pendingPresentationName != null ) {
+      message = "Loading presentation '" + pendingPresentationName + "'...";
+    } else if ( pendingPage != null || currentPage != null ) {
+      message = "Rendering page...";
+    } else {
+      return;
+    }
+    Point extent = gc.textExtent( message );
+    gc.setBackground( display.getSystemColor( SWT.COLOR_INFO_BACKGROUND ) );
+    gc.setForeground( display.getSystemColor( SWT.COLOR_INFO_FOREGROUND ) );
+    gc.fillRectangle( 5, 5, extent.x + 10, extent.y + 6 );
+    gc.drawText( message, 10, 8, true );
   }
 
   /**
-   * Paint the presentation...
+   * Get the bitmap of the current page.
+   * The page was rasterized in the background, this only creates the image from that raster if the page or the zoom of
+   * the monitor changed. If the raster was released in the meantime it's materialized again in the background, after
+   * this paint, see {@link #rematerializeCurrentPage()}.
    *
-   * @param paintEvent
+   * @return The rasterized page or null if it's not available (yet)
    */
-  @Override public void paintControl( PaintEvent paintEvent ) {
-    // Simply render it onto the GC of the event...
-    //
-    try {
-      LeanPage page = currentRenderPage.getPage();
-      int width = page.getWidth();
-      int height = page.getHeight();
-
-      // Render the SVG image
-      Image image = new SwtUniversalImageSvg( currentSvgImage, false )
-        .getAsBitmapForSize( getParent().getDisplay(), width, height );
-
-      // Double buffer the image on the canvas
-      //
-      paintEvent.gc.setBackground( new Color( getDisplay(), 255, 255, 255 ) );
-      paintEvent.gc.setForeground( new Color( getDisplay(), 0, 0, 0 ) );
-      paintEvent.gc.fillRectangle( 0, 0, width, height );
-
-      paintEvent.gc.drawImage( image, 0, 0 );
-
-      image.dispose();
+  private Image getPageImage() {
+    LeanPage page = currentRenderPage.getPage();
+    PageImageKey key = new PageImageKey( currentRenderPage, page.getWidth(), page.getHeight(), getDeviceZoom() );
+    if ( cachedImage == null || cachedImage.isDisposed() || !key.equals( cachedImageKey ) ) {
+      disposeCachedImage();
+      ImageData imageData = currentPage.getImageData();
+      if ( imageData == null ) {
+        if ( pendingPage == null && rematerializing == null ) {
+          display.asyncExec( this::rematerializeCurrentPage );
+        }
+        return null;
+      }
+      cachedImage = resources.createImage( imageData );
+      cachedImageKey = key;
+    }
+    return cachedImage;
+  }
 
-    } catch ( Exception e ) {
-      throw new RuntimeException( "Unable to get SVG XML from rendered page", e );
+  /**
+   * Rasterize the shown page again after the raster budget released it. Unlike showing the page this keeps the scroll
+   * position, the zoom and the highlights: only the bitmap is created again once the raster is back.
+   */
+  private void rematerializeCurrentPage() {
+    if ( isDisposed() || currentPage == null || pendingPage != null || rematerializing != null ) {
+      return;
     }
+    RenderedPage page = currentPage;
+    CompletableFuture<RenderedPage> materialized = renderService.materialize( page );
+    rematerializing = materialized;
+    materialized.whenComplete( ( value, error ) -> {
+      if ( display.isDisposed() ) {
+        return;
+      }
+      display.asyncExec( () -> {
+        if ( rematerializing == materialized ) {
+          rematerializing = null;
+        }
+        if ( isDisposed() || page != currentPage ) {
+          return;
+        }
+        if ( error != null ) {
+          log.logError( "Unable to render page " + ( page.getPageIndex() + 1 ), error );
+          renderErrorMessage = error.getMessage();
+        }
+        disposeCachedImage();
+        wCanvas.redraw();
+      } );
+    } );
+  }
+
+  private void disposeCachedImage() {
+    resources.disposeImage( cachedImage );
+    cachedImage = null;
+    cachedImageKey = null;
   }
 
   @Override public void mouseDoubleClick( MouseEvent e ) {
     try {
-      LeanInteractionMethod doubleClick = new LeanInteractionMethod( false, true );
-      handleAction( e, doubleClick );
+      handleAction( e, true );
     } catch ( Exception ex ) {
       ex.printStackTrace();
     }
@@ -182,27 +1429,119 @@ public class LeanPresentationViewer extends Composite implements PaintListener,
 
 
   @Override public void mouseMove( MouseEvent e ) {
+    userActive();
+    if ( panStart != null ) {
+      scrollTo( panOrigin.x - ( e.x - panStart.x ), panOrigin.y - ( e.y - panStart.y ) );
+      return;
+    }
 
     // If we mouse over a possible interaction, change the cursor...
     //
-    DrawnItem drawnItem = lookupDrawnItem( e.x, e.y );
-    if ( drawnItem != null ) {
-      // Find any interaction method that matches for the drawn item...
-      //
-      LeanInteraction interaction = currentPresentation.findInteraction( null, drawnItem );
-      if ( interaction != null ) {
-        setCursor( getDisplay().getSystemCursor( SWT.CURSOR_HAND ) );
+    int cursor = SWT.CURSOR_ARROW;
+    if ( snapshot != null ) {
+      setHoverItem( null );
+      if ( snapshot.lookup( toPageX( e.x ), toPageY( e.y ) ) != null ) {
+        cursor = SWT.CURSOR_HAND;
+      }
+    } else {
+      DrawnItem drawnItem = lookupDrawnItem( e.x, e.y );
+      setHoverItem( drawnItem );
+      try {
+        if ( currentPage != null && currentPage.getInteractionMap().hasInteraction( drawnItem ) ) {
+          cursor = SWT.CURSOR_HAND;
+        }
+      } catch ( LeanException ex ) {
+        if ( interactionErrorPage != currentPage ) {
+          interactionErrorPage = currentPage;
+          log.logError( "Unable to resolve the interactions of page " + ( currentPage.getPageIndex() + 1 ), ex );
+        }
+      }
+    }
+    if ( cursor != currentCursor ) {
+      currentCursor = cursor;
+      setCursor( getDisplay().getSystemCursor( cursor ) );
+    }
+  }
+
+  private void setHoverItem( DrawnItem drawnItem ) {
+    if ( drawnItem == hoverItem ) {
+      return;
+    }
+    Rectangle previousArea = hoverInteractive ? getHighlightArea( hoverItem ) : null;
+    hoverItem = drawnItem;
+    hoverInteractive = hoverHighlight && isInteractive( drawnItem );
+
+    // Only the outlines change, the page underneath comes from the cached bitmap or tiles
+    //
+    redrawHighlight( previousArea );
+    redrawHighlight( hoverInteractive ? getHighlightArea( drawnItem ) : null );
+    wCanvas.setToolTipText( hoverInteractive ? getItemValue( drawnItem ) : null );
+
+    cancelSpeculativeRender();
+    if ( speculativeRendering && drawnItem != null ) {
+      try {
+        scheduleSpeculativeRender( drawnItem );
+      } catch ( LeanException ex ) {
+        // Only a head start, the presentation is simply rendered when it's opened
+        //
+        log.logError( "Unable to resolve the interaction to render speculatively", ex );
+      }
+    }
+  }
+
+  /**
+   * If the hovered item opens a presentation when clicked, start rendering it in the background once the mouse rests
+   * on the item for a while. When the user clicks, the render in progress or its cached result is used.
+   */
+  private void scheduleSpeculativeRender( DrawnItem drawnItem ) throws LeanException {
+    InteractionMap interactionMap = currentPage.getInteractionMap();
+    LeanInteractionAction action = InteractionMap.findOpenPresentationAction( interactionMap.getClickInteraction( drawnItem ) );
+    if ( action == null ) {
+      action = InteractionMap.findOpenPresentationAction( interactionMap.getDoubleClickInteraction( drawnItem ) );
+    }
+    if ( action == null ) {
+      return;
+    }
+    String presentationName = action.getObjectName();
+    List<LeanParameter> parameters = InteractionMap.resolveParameters( currentPresentation, action, drawnItem );
+
+    speculativeTimer = () -> {
+      speculativeTimer = null;
+      if ( isDisposed() || hoverItem != drawnItem ) {
         return;
       }
+      speculativeRender = renderService.submitSpeculative( presentationName, parameters );
+    };
+    display.timerExec( speculativeDwellMs, speculativeTimer );
+  }
+
+  private void cancelSpeculativeRender() {
+    if ( speculativeTimer != null ) {
+      display.timerExec( -1, speculativeTimer );
+      speculativeTimer = null;
+    }
+    if ( speculativeRender != null ) {
+      speculativeRender.cancel( true );
+      speculativeRender = null;
     }
-    setCursor( getDisplay().getSystemCursor( SWT.CURSOR_ARROW ) );
   }
 
-  private void handleAction( MouseEvent e, LeanInteractionMethod interactionMethod ) throws LeanException, IOException, HopException {
+  private void handleAction( MouseEvent e, boolean doubleClick ) throws LeanException {
+    if ( snapshot != null ) {
+      // The page from the disk cache knows where to go with which parameters
+      //
+      PageSnapshot.HitArea hitArea = snapshot.lookup( toPageX( e.x ), toPageY( e.y ), doubleClick );
+      if ( hitArea != null ) {
+        openPresentation( hitArea.getPresentationName(), hitArea.getParameters() );
+      }
+      return;
+    }
     DrawnItem drawnItem = lookupDrawnItem( e.x, e.y );
     if ( drawnItem != null ) {
-      LeanInteraction interaction = currentPresentation.findInteraction( interactionMethod, drawnItem );
+      InteractionMap interactionMap = currentPage.getInteractionMap();
+      LeanInteraction interaction = doubleClick ? interactionMap.getDoubleClickInteraction( drawnItem ) : interactionMap.getClickInteraction( drawnItem );
       if ( interaction != null ) {
+        setSelectedItem( drawnItem );
         List<LeanInteractionAction> actions = interaction.getActions();
         for ( LeanInteractionAction action : actions ) {
           LeanInteractionAction.ActionType actionType = action.getActionType();
@@ -212,44 +1551,10 @@ public class LeanPresentationViewer extends Composite implements PaintListener,
 
               // The parameters...
               //
-              currentParameters = new ArrayList<>();
-
-              for ( LeanInteractionParameter parameter : action.getParameters() ) {
-
-                LeanParameter leanParameter = new LeanParameter();
-                leanParameter.setParameterName( parameter.getParameterName() );
-                String value = "";
-                switch ( parameter.getSourceType() ) {
-                  case PresentationName:
-                    value =
-                      currentPresentation.getName();
-                    break;
-                  case ComponentName:
-                    value =
-                      drawnItem.getComponentName();
-                    break;
-                  case ItemType:
-                    value = drawnItem.getType().name();
-                    break;
-                  case ItemValue:
-                    if (drawnItem.getContext()!=null) {
-                      value = drawnItem.getContext().getValue();
-                    }
-                    break;
-                  case ItemCategory:
-                    value = drawnItem.getCategory();
-                    break;
-                  case ComponentPluginId:
-                    value = drawnItem.getComponentPluginId();
-                    break;
-                }
-                leanParameter.setParameterValue( value );
-                currentParameters.add( leanParameter );
-              }
+              List<LeanParameter> parameters = InteractionMap.resolveParameters( currentPresentation, action, drawnItem );
 
               if ( StringUtils.isNotEmpty( action.getObjectName() ) ) {
-                loadAndRenderPresentation( action.getObjectName() );
-                wCanvas.redraw();
+                openPresentation( action.getObjectName(), parameters );
               }
               break;
           }
@@ -259,27 +1564,355 @@ public class LeanPresentationViewer extends Composite implements PaintListener,
   }
 
   private DrawnItem lookupDrawnItem( int x, int y ) {
-    DrawnItem drawnItem = currentRenderPage.lookupDrawnItem( x, y, true );
-    if (drawnItem==null) {
-      drawnItem = currentRenderPage.lookupDrawnItem( x, y, true );
+    if ( currentPage == null ) {
+      return null;
     }
-    return drawnItem;
+    double scale = getScale();
+    return currentPage.getDrawnItemIndex().lookup( (int) ( ( x + originX ) / scale ), (int) ( ( y + originY ) / scale ) );
+  }
+
+  private int toPageX( int x ) {
+    return (int) ( ( x + originX ) / getScale() );
+  }
+
+  private int toPageY( int y ) {
+    return (int) ( ( y + originY ) / getScale() );
   }
 
   @Override public void mouseDown( MouseEvent e ) {
-    // System.out.println("MOUSE DOWN : ("+e.x+", "+e.y+")");
+    userActive();
+
+    // Take the focus so that the page keys work
+    //
+    wCanvas.setFocus();
+
+    // Drag with the middle button to pan
+    //
+    if ( e.button == 2 ) {
+      panStart = new Point( e.x, e.y );
+      panOrigin = new Point( originX, originY );
+    }
   }
 
   @Override public void mouseUp( MouseEvent e ) {
+    // The side buttons of the mouse navigate through the history
+    //
+    if ( e.button == 4 ) {
+      back();
+      return;
+    }
+    if ( e.button == 5 ) {
+      forward();
+      return;
+    }
+    if ( e.button == 2 ) {
+      panStart = null;
+      return;
+    }
     try {
-      LeanInteractionMethod click = new LeanInteractionMethod( true, false );
-      handleAction( e, click );
+      handleAction( e, false );
     } catch ( Exception ex ) {
       ex.printStackTrace();
     }
 
   }
 
+  @Override public void keyPressed( KeyEvent e ) {
+    userActive();
+    if ( ( e.stateMask & SWT.MOD1 ) != 0 ) {
+      if ( e.keyCode == '+' || e.keyCode == '=' || e.keyCode == SWT.KEYPAD_ADD ) {
+        setZoom( zoom * ZOOM_STEP );
+      } else if ( e.keyCode == '-' || e.keyCode == SWT.KEYPAD_SUBTRACT ) {
+        setZoom( zoom / ZOOM_STEP );
+      } else if ( e.keyCode == '0' || e.keyCode == SWT.KEYPAD_0 ) {
+        setZoom( 1.0 );
+      }
+      return;
+    }
+    if ( ( e.stateMask & SWT.ALT ) != 0 ) {
+      if ( e.keyCode == SWT.ARROW_LEFT ) {
+        back();
+      } else if ( e.keyCode == SWT.ARROW_RIGHT ) {
+        forward();
+      }
+      return;
+    }
+    switch ( e.keyCode ) {
+      case SWT.BS:
+        back();
+        break;
+      case SWT.PAGE_DOWN:
+        nextPage();
+        break;
+      case SWT.PAGE_UP:
+        previousPage();
+        break;
+      case SWT.HOME:
+        showPage( 0 );
+        break;
+      case SWT.END:
+        showPage( getPageCount() - 1 );
+        break;
+      case SWT.ARROW_LEFT:
+        scrollTo( originX - SCROLL_INCREMENT, originY );
+        break;
+      case SWT.ARROW_RIGHT:
+        scrollTo( originX + SCROLL_INCREMENT, originY );
+        break;
+      case SWT.ARROW_UP:
+        scrollTo( originX, originY - SCROLL_INCREMENT );
+        break;
+      case SWT.ARROW_DOWN:
+        scrollTo( originX, originY + SCROLL_INCREMENT );
+        break;
+      default:
+        break;
+    }
+  }
+
+  @Override public void keyReleased( KeyEvent e ) {
+  }
+
+  /**
+   * Zoom with the mouse wheel while holding down Ctrl (Cmd on Mac)
+   */
+  private void mouseWheel( Event e ) {
+    userActive();
+    if ( ( e.stateMask & SWT.MOD1 ) == 0 || e.count == 0 ) {
+      return;
+    }
+    e.doit = false;
+    zoomAround( e.count > 0 ? zoom * ZOOM_STEP : zoom / ZOOM_STEP, e.x, e.y );
+  }
+
+  /**
+   * Change the zoom level while keeping the location under the given canvas position in place.
+   */
+  private void zoomAround( double newZoom, int x, int y ) {
+    double oldScale = getScale();
+    double pageX = ( x + originX ) / oldScale;
+    double pageY = ( y + originY ) / oldScale;
+
+    zoomMode = ZoomMode.CUSTOM;
+    zoom = Math.max( MIN_ZOOM, Math.min( MAX_ZOOM, newZoom ) );
+
+    double newScale = getScale();
+    originX = (int) Math.round( pageX * newScale - x );
+    originY = (int) Math.round( pageY * newScale - y );
+    updateScrollBars();
+    cancelInvisibleTiles();
+    wCanvas.redraw();
+  }
+
+  /**
+   * The canvas was resized or moved to a monitor with another zoom level.
+   * Fit the page right away but only rasterize it again when the size has settled, meanwhile the page is painted as a
+   * scaled copy of its bitmap.
+   */
+  private void resized() {
+    resizing = true;
+    if ( resizeTimer != null ) {
+      display.timerExec( -1, resizeTimer );
+    }
+    resizeTimer = () -> {
+      resizeTimer = null;
+      resizing = false;
+      if ( !wCanvas.isDisposed() ) {
+        cancelInvisibleTiles();
+        wCanvas.redraw();
+      }
+    };
+    display.timerExec( RESIZE_SETTLE_MS, resizeTimer );
+    updateZoom();
+  }
+
+  /**
+   * Calculate the zoom level for the fit modes and update the scroll bars.
+   * Showing or hiding a scroll bar changes the available space so the fit is calculated again if that happens.
+   */
+  private void updateZoom() {
+    for ( int attempt = 0; attempt < 2; attempt++ ) {
+      Rectangle client = wCanvas.getClientArea();
+      if ( currentRenderPage != null && zoomMode != ZoomMode.CUSTOM && client.width > 0 && client.height > 0 ) {
+        LeanPage page = currentRenderPage.getPage();
+        double fitWidth = (double) client.width / page.getWidth();
+        double fitHeight = (double) client.height / page.getHeight();
+        double fit = zoomMode == ZoomMode.FIT_WIDTH ? fitWidth : Math.min( fitWidth, fitHeight );
+
+        // Whole percentages only: resizing by a few pixels keeps the pixel size of the page and with it the tiles
+        //
+        fit = Math.floor( fit * 100 ) / 100;
+        zoom = Math.max( MIN_ZOOM, Math.min( MAX_ZOOM, fit ) );
+      }
+      updateScrollBars();
+      if ( client.equals( wCanvas.getClientArea() ) ) {
+        break;
+      }
+    }
+    cancelInvisibleTiles();
+    wCanvas.redraw();
+  }
+
+  private void updateScrollBars() {
+    updatingScrollBars = true;
+    try {
+      Point content = getContentSize();
+      Rectangle client = wCanvas.getClientArea();
+      originX = Math.max( 0, Math.min( originX, content.x - client.width ) );
+      originY = Math.max( 0, Math.min( originY, content.y - client.height ) );
+      configureScrollBar( wCanvas.getHorizontalBar(), content.x, client.width, originX );
+      configureScrollBar( wCanvas.getVerticalBar(), content.y, client.height, originY );
+    } finally {
+      updatingScrollBars = false;
+    }
+  }
+
+  private static void configureScrollBar( ScrollBar scrollBar, int content, int visible, int selection ) {
+    if ( scrollBar == null ) {
+      return;
+    }
+    scrollBar.setVisible( content > visible );
+    scrollBar.setValues( selection, 0, Math.max( 1, content ), Math.max( 1, Math.min( visible, content ) ), SCROLL_INCREMENT, Math.max( 1, visible ) );
+  }
+
+  /**
+   * Scroll the page so that the given position of the zoomed page is in the top left corner of the canvas.
+   * The pixels already on screen are moved, only the uncovered area is painted.
+   */
+  private void scrollTo( int x, int y ) {
+    Point content = getContentSize();
+    Rectangle client = wCanvas.getClientArea();
+    int newOriginX = Math.max( 0, Math.min( x, content.x - client.width ) );
+    int newOriginY = Math.max( 0, Math.min( y, content.y - client.height ) );
+    int dx = originX - newOriginX;
+    int dy = originY - newOriginY;
+    if ( dx == 0 && dy == 0 ) {
+      return;
+    }
+    originX = newOriginX;
+    originY = newOriginY;
+
+    if ( pendingRender != null || pendingPage != null || renderErrorMessage != null ) {
+      // The status banner doesn't move with the page
+      //
+      wCanvas.redraw();
+    } else {
+      wCanvas.scroll( dx, dy, 0, 0, client.width, client.height, false );
+    }
+    if ( wCanvas.getHorizontalBar() != null ) {
+      wCanvas.getHorizontalBar().setSelection( originX );
+    }
+    if ( wCanvas.getVerticalBar() != null ) {
+      wCanvas.getVerticalBar().setSelection( originY );
+    }
+    cancelInvisibleTiles();
+  }
+
+  /**
+   * @return The zoom level rounded to the precision used for tiles
+   */
+  private int getScaleKey() {
+    return (int) Math.round( zoom * 1000 );
+  }
+
+  private double getScale() {
+    return getScaleKey() / 1000.0;
+  }
+
+  /**
+   * @return The zoom of the monitor the viewer is on, 100 for one pixel per point
+   */
+  private int getDeviceZoom() {
+    return getMonitor().getZoom();
+  }
+
+  /**
+   * @return The size of the current page at the current zoom level
+   */
+  private Point getContentSize() {
+    if ( currentRenderPage == null ) {
+      return new Point( 0, 0 );
+    }
+    LeanPage page = currentRenderPage.getPage();
+    double scale = getScale();
+    return new Point( (int) Math.ceil( page.getWidth() * scale ), (int) Math.ceil( page.getHeight() * scale ) );
+  }
+
+  /**
+   * Set the zoom level, this switches to the custom zoom mode
+   *
+   * @param zoom The zoom level, 1.0 is 100%
+   */
+  public void setZoom( double zoom ) {
+    checkWidget();
+    Rectangle client = wCanvas.getClientArea();
+    zoomAround( zoom, client.width / 2, client.height / 2 );
+  }
+
+  /**
+   * Gets zoom
+   *
+   * @return value of zoom, 1.0 is 100%
+   */
+  public double getZoom() {
+    return zoom;
+  }
+
+  /**
+   * @param zoomMode How to determine the zoom level: fit the width, the whole page or a custom zoom level
+   */
+  public void setZoomMode( ZoomMode zoomMode ) {
+    checkWidget();
+    this.zoomMode = zoomMode;
+    updateZoom();
+  }
+
+  /**
+   * Gets zoomMode
+   *
+   * @return value of zoomMode
+   */
+  public ZoomMode getZoomMode() {
+    return zoomMode;
+  }
+
+  /**
+   * Gets the render metrics of this viewer: timings per stage and presentation, page sizes and cache hit rates.
+   * Use {@link RenderMetrics#setEnabled(boolean)} to start measuring.
+   *
+   * @return The render metrics
+   */
+  public RenderMetrics getMetrics() {
+    return renderService.getRenderer().getMetrics();
+  }
+
+  /**
+   * Log the timings of the render stages on the log channel of this viewer at the detailed level
+   *
+   * @param logging true to log the timings, false to stop logging them
+   */
+  public void setMetricsLogging( boolean logging ) {
+    getMetrics().setLog( logging ? log : null );
+  }
+
+  /**
+   * Gets the registry of the colors, fonts and images used by this viewer
+   *
+   * @return value of resources
+   */
+  public SwtResourceRegistry getResources() {
+    return resources;
+  }
+
+  /**
+   * Gets tileCache
+   *
+   * @return value of tileCache
+   */
+  public TileCache getTileCache() {
+    return tileCache;
+  }
+
   /**
    * Gets parent
    *
@@ -316,6 +1949,60 @@ public class LeanPresentationViewer extends Composite implements PaintListener,
     return currentPresentationName;
   }
 
+  /**
+   * Forget the cached renders of a presentation, for example after its metadata changed.
+   * The next time it's opened it's loaded and rendered again.
+   *
+   * @param presentationName The name of the presentation
+   */
+  public void invalidatePresentation( String presentationName ) {
+    renderService.getCache().invalidate( presentationName );
+  }
+
+  /**
+   * Gets speculativeRendering
+   *
+   * @return value of speculativeRendering
+   */
+  public boolean isSpeculativeRendering() {
+    return speculativeRendering;
+  }
+
+  /**
+   * @param speculativeRendering Set to true to render the presentation a click would open while the mouse rests on an item
+   */
+  public void setSpeculativeRendering( boolean speculativeRendering ) {
+    this.speculativeRendering = speculativeRendering;
+    if ( !speculativeRendering ) {
+      cancelSpeculativeRender();
+    }
+  }
+
+  /**
+   * Gets speculativeDwellMs
+   *
+   * @return value of speculativeDwellMs
+   */
+  public int getSpeculativeDwellMs() {
+    return speculativeDwellMs;
+  }
+
+  /**
+   * @param speculativeDwellMs How long the mouse has to rest on an item before speculative rendering starts
+   */
+  public void setSpeculativeDwellMs( int speculativeDwellMs ) {
+    this.speculativeDwellMs = speculativeDwellMs;
+  }
+
+  /**
+   * Gets history
+   *
+   * @return value of history
+   */
+  public NavigationHistory getHistory() {
+    return history;
+  }
+
   /**
    * Gets wCanvas
    *
@@ -331,7 +2018,7 @@ public class LeanPresentationViewer extends Composite implements PaintListener,
    * @return value of results
    */
   public LeanLayoutResults getCurrentResults() {
-    return currentResults;
+    return currentRendered == null ? null : currentRendered.getResults();
   }
 
   /**
@@ -342,4 +2029,31 @@ public class LeanPresentationViewer extends Composite implements PaintListener,
   public LeanRenderPage getCurrentRenderPage() {
     return currentRenderPage;
   }
+
+  /**
+   * Gets currentPage
+   *
+   * @return value of currentPage
+   */
+  public RenderedPage getCurrentPage() {
+    return currentPage;
+  }
+
+  /**
+   * Gets the render in progress
+   *
+   * @return The future of the presentation being rendered or null if nothing is being rendered
+   */
+  public CompletableFuture<RenderedPresentation> getPendingRender() {
+    return pendingRender;
+  }
+
+  /**
+   * Gets renderService
+   *
+   * @return value of renderService
+   */
+  public PresentationRenderService getRenderService() {
+    return renderService;
+  }
 }
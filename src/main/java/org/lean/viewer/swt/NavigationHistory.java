@@ -0,0 +1,226 @@
+package org.lean.viewer.swt;
+
+import org.lean.presentation.variable.LeanParameter;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Browser style back and forward history of the presentations shown in a viewer.
+ * The most recent entries keep their rendered presentation so that going back is instant. Once the entries use more
+ * memory than allowed, older entries drop their render and only remember what to render again when they're visited.
+ */
+public class NavigationHistory {
+
+  public static final int DEFAULT_MAX_DEPTH = 50;
+  public static final long DEFAULT_MAX_RETAINED_BYTES = 128L * 1024 * 1024;
+
+  private final Deque<Entry> backEntries;
+  private final Deque<Entry> forwardEntries;
+
+  private int maxDepth;
+  private long maxRetainedBytes;
+
+  /**
+   * A presentation and page shown in the past
+   */
+  public static class Entry {
+    private final String presentationName;
+    private final List<LeanParameter> parameters;
+    private final int pageIndex;
+    private RenderedPresentation rendered;
+
+    public Entry( RenderedPresentation rendered, int pageIndex ) {
+      this.presentationName = rendered.getPresentationName();
+      this.parameters = new ArrayList<>( rendered.getParameters() );
+      this.pageIndex = pageIndex;
+      this.rendered = rendered;
+    }
+
+    /**
+     * Gets presentationName
+     *
+     * @return value of presentationName
+     */
+    public String getPresentationName() {
+      return presentationName;
+    }
+
+    /**
+     * Gets parameters
+     *
+     * @return value of parameters
+     */
+    public List<LeanParameter> getParameters() {
+      return parameters;
+    }
+
+    /**
+     * Gets pageIndex
+     *
+     * @return value of pageIndex
+     */
+    public int getPageIndex() {
+      return pageIndex;
+    }
+
+    /**
+     * Gets rendered
+     *
+     * @return value of rendered or null if it has to be rendered again
+     */
+    public RenderedPresentation getRendered() {
+      return rendered;
+    }
+  }
+
+  public NavigationHistory() {
+    this.backEntries = new LinkedList<>();
+    this.forwardEntries = new LinkedList<>();
+    this.maxDepth = DEFAULT_MAX_DEPTH;
+    this.maxRetainedBytes = DEFAULT_MAX_RETAINED_BYTES;
+  }
+
+  /**
+   * Remember the entry we're navigating away from to open something new. The forward history is cleared.
+   *
+   * @param current The entry being left
+   */
+  public void visit( Entry current ) {
+    backEntries.push( current );
+    forwardEntries.clear();
+    trim();
+  }
+
+  /**
+   * Go back in history.
+   *
+   * @param current The entry shown now, it's remembered to go forward again
+   * @return The entry to show or null if there's nothing to go back to
+   */
+  public Entry back( Entry current ) {
+    if ( backEntries.isEmpty() ) {
+      return null;
+    }
+    if ( current != null ) {
+      forwardEntries.push( current );
+    }
+    Entry entry = backEntries.pop();
+    trim();
+    return entry;
+  }
+
+  /**
+   * Go forward in history.
+   *
+   * @param current The entry shown now, it's remembered to go back again
+   * @return The entry to show or null if there's nothing to go forward to
+   */
+  public Entry forward( Entry current ) {
+    if ( forwardEntries.isEmpty() ) {
+      return null;
+    }
+    if ( current != null ) {
+      backEntries.push( current );
+    }
+    Entry entry = forwardEntries.pop();
+    trim();
+    return entry;
+  }
+
+  /**
+   * Drop the entries beyond the maximum depth and the renders which don't fit in memory anymore.
+   * The entries closest to the current position keep their render the longest.
+   */
+  private void trim() {
+    while ( backEntries.size() > maxDepth ) {
+      backEntries.removeLast();
+    }
+    while ( forwardEntries.size() > maxDepth ) {
+      forwardEntries.removeLast();
+    }
+
+    long retained = 0L;
+    Iterator<Entry> backIterator = backEntries.iterator();
+    Iterator<Entry> forwardIterator = forwardEntries.iterator();
+    while ( backIterator.hasNext() || forwardIterator.hasNext() ) {
+      if ( backIterator.hasNext() ) {
+        retained = retain( backIterator.next(), retained );
+      }
+      if ( forwardIterator.hasNext() ) {
+        retained = retain( forwardIterator.next(), retained );
+      }
+    }
+  }
+
+  private long retain( Entry entry, long retained ) {
+    if ( entry.rendered == null ) {
+      return retained;
+    }
+    long bytes = entry.rendered.getEstimatedBytes();
+    if ( retained + bytes > maxRetainedBytes ) {
+      entry.rendered = null;
+      return retained;
+    }
+    return retained + bytes;
+  }
+
+  /**
+   * Forget everything
+   */
+  public void clear() {
+    backEntries.clear();
+    forwardEntries.clear();
+  }
+
+  /**
+   * @return true if there's an entry to go back to
+   */
+  public boolean canGoBack() {
+    return !backEntries.isEmpty();
+  }
+
+  /**
+   * @return true if there's an entry to go forward to
+   */
+  public boolean canGoForward() {
+    return !forwardEntries.isEmpty();
+  }
+
+  /**
+   * Gets maxDepth
+   *
+   * @return value of maxDepth
+   */
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  /**
+   * @param maxDepth The maximum number of entries to keep in either direction
+   */
+  public void setMaxDepth( int maxDepth ) {
+    this.maxDepth = maxDepth;
+    trim();
+  }
+
+  /**
+   * Gets maxRetainedBytes
+   *
+   * @return value of maxRetainedBytes
+   */
+  public long getMaxRetainedBytes() {
+    return maxRetainedBytes;
+  }
+
+  /**
+   * @param maxRetainedBytes The maximum approximate memory of the renders kept by the history entries
+   */
+  public void setMaxRetainedBytes( long maxRetainedBytes ) {
+    this.maxRetainedBytes = maxRetainedBytes;
+    trim();
+  }
+}
@@ -0,0 +1,141 @@
+package org.lean.viewer.swt;
+
+import org.eclipse.swt.graphics.Rectangle;
+import org.lean.core.LeanGeometry;
+import org.lean.core.draw.DrawnItem;
+import org.lean.presentation.layout.LeanRenderPage;
+import org.lean.presentation.page.LeanPage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The areas of a page which differ between two renders of the same presentation.
+ * With different parameter values the damage is calculated from the components: a component is damaged when it
+ * depends on a changed parameter or when it moved or changed size, for example because it's attached to a component
+ * whose content changed. Its area before and after the change both need to be repainted. A refresh compares rasters
+ * instead, see {@link RasterDiff}.
+ */
+public class PageDamage {
+
+  /**
+   * Extra pixels around every damaged area for anti-aliasing which bleeds outside the geometry of the drawn items
+   */
+  public static final int MARGIN = 2;
+
+  /**
+   * Above this fraction of the page area it's cheaper to simply rasterize the whole page
+   */
+  public static final double MAX_DAMAGED_FRACTION = 0.5;
+
+  private final List<Rectangle> areas;
+
+  private PageDamage( List<Rectangle> areas ) {
+    this.areas = areas;
+  }
+
+  /**
+   * @param areas The damaged areas in page coordinates
+   * @return The damage consisting of the given areas
+   */
+  public static PageDamage of( List<Rectangle> areas ) {
+    return new PageDamage( areas );
+  }
+
+  /**
+   * Calculate the damage between the previous and the current render of a page
+   *
+   * @param dependencies      The parameter dependencies of the components of the presentation
+   * @param changedParameters The names of the parameters with a different value
+   * @param previous          The previous render of the page
+   * @param current           The current render of the page
+   * @return The damaged areas or null if the whole page needs to be rasterized again
+   */
+  public static PageDamage calculate( ParameterDependencies dependencies, Set<String> changedParameters, LeanRenderPage previous,
+                                      LeanRenderPage current ) {
+    LeanPage previousPage = previous.getPage();
+    LeanPage page = current.getPage();
+    if ( previousPage.getWidth() != page.getWidth() || previousPage.getHeight() != page.getHeight() ) {
+      return null;
+    }
+
+    Map<String, Rectangle> previousBounds = getComponentBounds( previous );
+    Map<String, Rectangle> currentBounds = getComponentBounds( current );
+    Set<String> componentNames = new HashSet<>( previousBounds.keySet() );
+    componentNames.addAll( currentBounds.keySet() );
+
+    Rectangle pageArea = new Rectangle( 0, 0, page.getWidth(), page.getHeight() );
+    List<Rectangle> areas = new ArrayList<>();
+    long damagedArea = 0;
+    for ( String componentName : componentNames ) {
+      Rectangle before = previousBounds.get( componentName );
+      Rectangle after = currentBounds.get( componentName );
+      if ( !Objects.equals( before, after ) || dependencies.isAffected( componentName, changedParameters ) ) {
+        for ( Rectangle bounds : new Rectangle[] { before, after } ) {
+          if ( bounds == null ) {
+            continue;
+          }
+          Rectangle area = new Rectangle( bounds.x - MARGIN, bounds.y - MARGIN, bounds.width + 2 * MARGIN, bounds.height + 2 * MARGIN )
+            .intersection( pageArea );
+          if ( !area.isEmpty() ) {
+            areas.add( area );
+            damagedArea += (long) area.width * area.height;
+          }
+        }
+      }
+    }
+
+    if ( damagedArea > MAX_DAMAGED_FRACTION * page.getWidth() * page.getHeight() ) {
+      return null;
+    }
+    return new PageDamage( areas );
+  }
+
+  private static Map<String, Rectangle> getComponentBounds( LeanRenderPage renderPage ) {
+    Map<String, Rectangle> bounds = new HashMap<>();
+    for ( DrawnItem drawnItem : renderPage.getDrawnItems() ) {
+      LeanGeometry geometry = drawnItem.getGeometry();
+      if ( geometry == null || drawnItem.getComponentName() == null ) {
+        continue;
+      }
+      Rectangle itemBounds = new Rectangle( geometry.getX(), geometry.getY(), geometry.getWidth(), geometry.getHeight() );
+      Rectangle componentBounds = bounds.get( drawnItem.getComponentName() );
+      bounds.put( drawnItem.getComponentName(), componentBounds == null ? itemBounds : componentBounds.union( itemBounds ) );
+    }
+    return bounds;
+  }
+
+  /**
+   * @param area An area in page coordinates
+   * @return true if the area overlaps with any of the damaged areas
+   */
+  public boolean intersects( Rectangle area ) {
+    for ( Rectangle damaged : areas ) {
+      if ( damaged.intersects( area ) ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return true if nothing on the page changed
+   */
+  public boolean isEmpty() {
+    return areas.isEmpty();
+  }
+
+  /**
+   * Gets areas
+   *
+   * @return value of areas
+   */
+  public List<Rectangle> getAreas() {
+    return areas;
+  }
+}
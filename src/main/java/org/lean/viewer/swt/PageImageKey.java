@@ -0,0 +1,77 @@
+package org.lean.viewer.swt;
+
+import org.lean.presentation.layout.LeanRenderPage;
+
+import java.util.Objects;
+
+/**
+ * Identifies a rasterized bitmap of a render page: the page itself, the size it was rasterized at and the zoom of the
+ * device it was rasterized for.
+ */
+public class PageImageKey {
+
+  private final LeanRenderPage renderPage;
+  private final int width;
+  private final int height;
+  private final int deviceZoom;
+
+  public PageImageKey( LeanRenderPage renderPage, int width, int height, int deviceZoom ) {
+    this.renderPage = renderPage;
+    this.width = width;
+    this.height = height;
+    this.deviceZoom = deviceZoom;
+  }
+
+  @Override public boolean equals( Object o ) {
+    if ( this == o ) {
+      return true;
+    }
+    if ( o == null || getClass() != o.getClass() ) {
+      return false;
+    }
+    PageImageKey that = (PageImageKey) o;
+    // Render pages are compared by identity: a new render is a new page
+    //
+    return renderPage == that.renderPage && width == that.width && height == that.height && deviceZoom == that.deviceZoom;
+  }
+
+  @Override public int hashCode() {
+    return Objects.hash( System.identityHashCode( renderPage ), width, height, deviceZoom );
+  }
+
+  /**
+   * Gets renderPage
+   *
+   * @return value of renderPage
+   */
+  public LeanRenderPage getRenderPage() {
+    return renderPage;
+  }
+
+  /**
+   * Gets width
+   *
+   * @return value of width
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Gets height
+   *
+   * @return value of height
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Gets deviceZoom
+   *
+   * @return value of deviceZoom
+   */
+  public int getDeviceZoom() {
+    return deviceZoom;
+  }
+}
@@ -0,0 +1,137 @@
+package org.lean.viewer.swt;
+
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.Rectangle;
+import org.lean.presentation.variable.LeanParameter;
+
+import java.util.List;
+
+/**
+ * The last known first page of a presentation as stored in the {@link DiskRenderCache}: its raster and the areas which
+ * open another presentation when clicked. It's shown while the presentation is rendered again.
+ */
+public class PageSnapshot {
+
+  private final String presentationName;
+  private final ImageData imageData;
+  private final List<HitArea> hitAreas;
+
+  /**
+   * An area of the page which opens a presentation with already resolved parameters
+   */
+  public static class HitArea {
+    private final Rectangle bounds;
+    private final boolean doubleClick;
+    private final String presentationName;
+    private final List<LeanParameter> parameters;
+
+    public HitArea( Rectangle bounds, boolean doubleClick, String presentationName, List<LeanParameter> parameters ) {
+      this.bounds = bounds;
+      this.doubleClick = doubleClick;
+      this.presentationName = presentationName;
+      this.parameters = parameters;
+    }
+
+    /**
+     * Gets bounds
+     *
+     * @return value of bounds
+     */
+    public Rectangle getBounds() {
+      return bounds;
+    }
+
+    /**
+     * Gets doubleClick
+     *
+     * @return value of doubleClick
+     */
+    public boolean isDoubleClick() {
+      return doubleClick;
+    }
+
+    /**
+     * Gets presentationName
+     *
+     * @return value of presentationName
+     */
+    public String getPresentationName() {
+      return presentationName;
+    }
+
+    /**
+     * Gets parameters
+     *
+     * @return value of parameters
+     */
+    public List<LeanParameter> getParameters() {
+      return parameters;
+    }
+  }
+
+  public PageSnapshot( String presentationName, ImageData imageData, List<HitArea> hitAreas ) {
+    this.presentationName = presentationName;
+    this.imageData = imageData;
+    this.hitAreas = hitAreas;
+  }
+
+  /**
+   * Find the area at a location which reacts to any click
+   *
+   * @param x The horizontal location in page coordinates
+   * @param y The vertical location in page coordinates
+   * @return The first area at the location or null if there is none
+   */
+  public HitArea lookup( int x, int y ) {
+    for ( HitArea hitArea : hitAreas ) {
+      if ( hitArea.getBounds().contains( x, y ) ) {
+        return hitArea;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Find the area at a location which reacts to a single or a double click
+   *
+   * @param x           The horizontal location in page coordinates
+   * @param y           The vertical location in page coordinates
+   * @param doubleClick true for a double click, false for a single click
+   * @return The first matching area or null if there is none
+   */
+  public HitArea lookup( int x, int y, boolean doubleClick ) {
+    for ( HitArea hitArea : hitAreas ) {
+      if ( hitArea.getBounds().contains( x, y ) && hitArea.isDoubleClick() == doubleClick ) {
+        return hitArea;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Gets presentationName
+   *
+   * @return value of presentationName
+   */
+  public String getPresentationName() {
+    return presentationName;
+  }
+
+  /**
+   * Gets imageData
+   *
+   * @return value of imageData
+   */
+  public ImageData getImageData() {
+    return imageData;
+  }
+
+  /**
+   * Gets hitAreas
+   *
+   * @return value of hitAreas
+   */
+  public List<HitArea> getHitAreas() {
+    return hitAreas;
+  }
+}
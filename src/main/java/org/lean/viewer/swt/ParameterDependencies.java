@@ -0,0 +1,225 @@
+package org.lean.viewer.swt;
+
+import org.lean.presentation.LeanPresentation;
+import org.lean.presentation.component.LeanComponent;
+import org.lean.presentation.component.types.label.LeanLabelComponent;
+import org.lean.presentation.page.LeanPage;
+import org.lean.presentation.variable.LeanParameter;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Which components of a presentation depend on which parameters.
+ * <p>
+ * Lean has no way to ask a component which parameters it uses: a parameter can end up in a query of a data connector,
+ * in a filter, in a label, or anywhere else a component type decides to resolve variables. That's why a component is
+ * considered to depend on all parameters unless its type is registered with {@link #registerScannableType(Class)}.
+ * Registering a type declares that its output is determined by its own properties alone, without reading any data.
+ * The components of such types are scanned for variable references like ${NAME} or %%NAME%% in their (nested) string
+ * properties and only depend on the parameters found. Labels are registered by default.
+ * <p>
+ * The limitation is that any other component is simply rendered again completely when a parameter changes, even if it
+ * doesn't use the parameter at all.
+ */
+public class ParameterDependencies {
+
+  private static final Pattern VARIABLE_PATTERN = Pattern.compile( "\\$\\{([^}]+)}|%%([^%]+)%%" );
+  private static final int MAX_DEPTH = 8;
+
+  private static final Set<Class<?>> scannableTypes = ConcurrentHashMap.newKeySet();
+
+  static {
+    registerScannableType( LeanLabelComponent.class );
+  }
+
+  private final Map<String, Set<String>> componentParameters;
+  private final Set<String> dependsOnAll;
+
+  public ParameterDependencies( LeanPresentation presentation ) {
+    this.componentParameters = new HashMap<>();
+    this.dependsOnAll = new HashSet<>();
+
+    for ( LeanPage page : presentation.getPages() ) {
+      for ( LeanComponent component : page.getComponents() ) {
+        Set<String> parameters = new HashSet<>();
+        Object implementation = component.getComponent();
+        if ( implementation == null || !scannableTypes.contains( implementation.getClass() )
+          || !scan( component, parameters, new IdentityHashMap<>(), 0 ) ) {
+          dependsOnAll.add( component.getName() );
+        }
+        componentParameters.put( component.getName(), parameters );
+      }
+    }
+  }
+
+  /**
+   * Declare that the output of a component type is determined by its own properties alone, so that its components only
+   * depend on the parameters they refer to in their string properties. Only the exact type is taken into account, not
+   * its subclasses.
+   *
+   * @param componentType The implementation type of the component, like {@link LeanLabelComponent}
+   */
+  public static void registerScannableType( Class<?> componentType ) {
+    scannableTypes.add( componentType );
+  }
+
+  /**
+   * Scan an object for variable references
+   *
+   * @return false if the object couldn't be scanned completely
+   */
+  private static boolean scan( Object object, Set<String> parameters, Map<Object, Object> visited, int depth ) {
+    if ( object == null || visited.put( object, object ) != null ) {
+      return true;
+    }
+    if ( depth > MAX_DEPTH ) {
+      return false;
+    }
+    boolean complete = true;
+    if ( object instanceof Collection ) {
+      for ( Object element : (Collection<?>) object ) {
+        complete &= scanValue( element, parameters, visited, depth );
+      }
+      return complete;
+    }
+    if ( object instanceof Map ) {
+      for ( Map.Entry<?, ?> entry : ( (Map<?, ?>) object ).entrySet() ) {
+        complete &= scanValue( entry.getKey(), parameters, visited, depth );
+        complete &= scanValue( entry.getValue(), parameters, visited, depth );
+      }
+      return complete;
+    }
+    if ( object.getClass().isArray() ) {
+      for ( int i = 0; i < Array.getLength( object ); i++ ) {
+        complete &= scanValue( Array.get( object, i ), parameters, visited, depth );
+      }
+      return complete;
+    }
+
+    for ( Class<?> type = object.getClass(); type != null && type != Object.class; type = type.getSuperclass() ) {
+      for ( Field field : type.getDeclaredFields() ) {
+        if ( Modifier.isStatic( field.getModifiers() ) || field.getType().isPrimitive() ) {
+          continue;
+        }
+        Object value;
+        try {
+          field.setAccessible( true );
+          value = field.get( object );
+        } catch ( Exception e ) {
+          return false;
+        }
+        complete &= scanValue( value, parameters, visited, depth );
+      }
+    }
+    return complete;
+  }
+
+  private static boolean scanValue( Object value, Set<String> parameters, Map<Object, Object> visited, int depth ) {
+    if ( value instanceof String ) {
+      Matcher matcher = VARIABLE_PATTERN.matcher( (String) value );
+      while ( matcher.find() ) {
+        parameters.add( matcher.group( 1 ) != null ? matcher.group( 1 ) : matcher.group( 2 ) );
+      }
+      return true;
+    }
+    if ( value == null || value instanceof Number || value instanceof Boolean || value instanceof Enum ) {
+      return true;
+    }
+    // Only look inside the objects of the presentation model, not in arbitrary library classes
+    //
+    if ( value instanceof Collection || value instanceof Map || value.getClass().isArray() || value.getClass().getName().startsWith( "org.lean." ) ) {
+      return scan( value, parameters, visited, depth + 1 );
+    }
+    return true;
+  }
+
+  /**
+   * Find the names of the parameters which have a different value in two parameter lists.
+   * A parameter which is missing from one of the lists counts as changed.
+   *
+   * @param previous The previous parameters
+   * @param current  The current parameters
+   * @return The names of the changed parameters
+   */
+  public static Set<String> findChangedParameters( List<LeanParameter> previous, List<LeanParameter> current ) {
+    Map<String, String> previousValues = toMap( previous );
+    Map<String, String> currentValues = toMap( current );
+    Set<String> changed = new HashSet<>();
+    for ( String name : previousValues.keySet() ) {
+      if ( !currentValues.containsKey( name ) || !Objects.equals( previousValues.get( name ), currentValues.get( name ) ) ) {
+        changed.add( name );
+      }
+    }
+    for ( String name : currentValues.keySet() ) {
+      if ( !previousValues.containsKey( name ) ) {
+        changed.add( name );
+      }
+    }
+    return changed;
+  }
+
+  private static Map<String, String> toMap( List<LeanParameter> parameters ) {
+    Map<String, String> map = new HashMap<>();
+    if ( parameters != null ) {
+      for ( LeanParameter parameter : parameters ) {
+        map.put( parameter.getParameterName(), parameter.getParameterValue() );
+      }
+    }
+    return map;
+  }
+
+  /**
+   * @param componentName     The name of the component
+   * @param changedParameters The names of the parameters which changed
+   * @return true if the component has to be rendered again because of the changed parameters
+   */
+  public boolean isAffected( String componentName, Set<String> changedParameters ) {
+    if ( changedParameters.isEmpty() ) {
+      return false;
+    }
+    if ( dependsOnAll.contains( componentName ) ) {
+      return true;
+    }
+    Set<String> parameters = componentParameters.get( componentName );
+    if ( parameters == null ) {
+      // Not a component we know of, play it safe
+      //
+      return true;
+    }
+    for ( String parameter : parameters ) {
+      if ( changedParameters.contains( parameter ) ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @param componentName The name of the component
+   * @return The names of the parameters the component refers to, only complete if it doesn't depend on all parameters
+   */
+  public Set<String> getParameters( String componentName ) {
+    return componentParameters.get( componentName );
+  }
+
+  /**
+   * @param componentName The name of the component
+   * @return true if the component isn't of a scannable type and is therefore considered to depend on all parameters
+   */
+  public boolean isDependingOnAll( String componentName ) {
+    return dependsOnAll.contains( componentName );
+  }
+}
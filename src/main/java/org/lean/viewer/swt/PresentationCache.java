@@ -0,0 +1,253 @@
+package org.lean.viewer.swt;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps rendered presentations around so that navigating back and forth doesn't load, lay out and render them again.
+ * Entries are keyed by presentation name and parameter values and evicted in least recently used order when there are
+ * too many of them or when their approximate memory use gets too large. Entries older than the time to live are
+ * considered stale and rendered again to pick up fresh data.
+ * When presentation metadata changes, invalidate the cached renders with {@link #invalidate(String)}.
+ */
+public class PresentationCache {
+
+  public static final int DEFAULT_MAX_ENTRIES = 20;
+  public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+  private final Map<PresentationKey, Entry> entries;
+  private final RasterBudget rasterBudget;
+
+  private int maxEntries;
+  private long maxBytes;
+  private long timeToLiveMs;
+
+  private long hits;
+  private long misses;
+
+  private static class Entry {
+    private final RenderedPresentation rendered;
+    private final long created;
+
+    private Entry( RenderedPresentation rendered, long created ) {
+      this.rendered = rendered;
+      this.created = created;
+    }
+  }
+
+  /**
+   * @param rasterBudget The budget the rasters of the cached pages are tracked in, released when evicted
+   */
+  public PresentationCache( RasterBudget rasterBudget ) {
+    this.rasterBudget = rasterBudget;
+    this.entries = new LinkedHashMap<>( 16, 0.75f, true );
+    this.maxEntries = DEFAULT_MAX_ENTRIES;
+    this.maxBytes = DEFAULT_MAX_BYTES;
+    this.timeToLiveMs = 0L;
+  }
+
+  /**
+   * Look up a rendered presentation.
+   *
+   * @param key The presentation name and parameter values
+   * @return The rendered presentation or null if it's not cached or stale
+   */
+  public synchronized RenderedPresentation get( PresentationKey key ) {
+    Entry entry = entries.get( key );
+    if ( entry != null && isExpired( entry ) ) {
+      remove( key );
+      entry = null;
+    }
+    if ( entry == null ) {
+      misses++;
+      return null;
+    }
+    hits++;
+    return entry.rendered;
+  }
+
+  /**
+   * Find the most recently used render of a presentation with any parameter values, to render it again incrementally.
+   * This doesn't count as a hit or a miss and doesn't change the order of eviction.
+   *
+   * @param presentationName The name of the presentation
+   * @return The most recently used render of the presentation or null if none is cached
+   */
+  public synchronized RenderedPresentation findLatest( String presentationName ) {
+    RenderedPresentation latest = null;
+    for ( Map.Entry<PresentationKey, Entry> entry : entries.entrySet() ) {
+      if ( entry.getKey().getPresentationName().equals( presentationName ) && !isExpired( entry.getValue() ) ) {
+        latest = entry.getValue().rendered;
+      }
+    }
+    return latest;
+  }
+
+  /**
+   * Add a rendered presentation and evict old entries if needed.
+   *
+   * @param key      The presentation name and parameter values
+   * @param rendered The rendered presentation
+   */
+  public synchronized void put( PresentationKey key, RenderedPresentation rendered ) {
+    if ( maxEntries <= 0 ) {
+      return;
+    }
+    Entry previous = entries.put( key, new Entry( rendered, System.currentTimeMillis() ) );
+    if ( previous != null && previous.rendered != rendered ) {
+      release( previous.rendered );
+    }
+    evict( key );
+  }
+
+  /**
+   * Forget all renders of a presentation, for example because its metadata changed.
+   *
+   * @param presentationName The name of the presentation
+   */
+  public synchronized void invalidate( String presentationName ) {
+    List<PresentationKey> keys = new ArrayList<>();
+    for ( PresentationKey key : entries.keySet() ) {
+      if ( key.getPresentationName().equals( presentationName ) ) {
+        keys.add( key );
+      }
+    }
+    for ( PresentationKey key : keys ) {
+      remove( key );
+    }
+  }
+
+  /**
+   * Forget everything
+   */
+  public synchronized void invalidateAll() {
+    for ( Entry entry : entries.values() ) {
+      release( entry.rendered );
+    }
+    entries.clear();
+  }
+
+  private void remove( PresentationKey key ) {
+    Entry entry = entries.remove( key );
+    if ( entry != null ) {
+      release( entry.rendered );
+    }
+  }
+
+  private void evict( PresentationKey keep ) {
+    long bytes = getEstimatedBytes();
+    Iterator<Map.Entry<PresentationKey, Entry>> iterator = entries.entrySet().iterator();
+    while ( ( entries.size() > maxEntries || bytes > maxBytes ) && iterator.hasNext() ) {
+      Map.Entry<PresentationKey, Entry> entry = iterator.next();
+      if ( entry.getKey().equals( keep ) ) {
+        continue;
+      }
+      bytes -= entry.getValue().rendered.getEstimatedBytes();
+      iterator.remove();
+      release( entry.getValue().rendered );
+    }
+  }
+
+  private boolean isExpired( Entry entry ) {
+    return timeToLiveMs > 0 && System.currentTimeMillis() - entry.created > timeToLiveMs;
+  }
+
+  private void release( RenderedPresentation rendered ) {
+    for ( RenderedPage page : rendered.getPages() ) {
+      rasterBudget.release( page );
+    }
+  }
+
+  /**
+   * @return The approximate memory used by the cached presentations
+   */
+  public synchronized long getEstimatedBytes() {
+    long bytes = 0L;
+    for ( Entry entry : entries.values() ) {
+      bytes += entry.rendered.getEstimatedBytes();
+    }
+    return bytes;
+  }
+
+  /**
+   * @return The number of cached presentations
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Gets hits
+   *
+   * @return value of hits
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * Gets misses
+   *
+   * @return value of misses
+   */
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Gets maxEntries
+   *
+   * @return value of maxEntries
+   */
+  public synchronized int getMaxEntries() {
+    return maxEntries;
+  }
+
+  /**
+   * @param maxEntries The maximum number of presentations to keep, 0 disables the cache
+   */
+  public synchronized void setMaxEntries( int maxEntries ) {
+    this.maxEntries = maxEntries;
+    if ( maxEntries <= 0 ) {
+      invalidateAll();
+    } else {
+      evict( null );
+    }
+  }
+
+  /**
+   * Gets maxBytes
+   *
+   * @return value of maxBytes
+   */
+  public synchronized long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * @param maxBytes The maximum approximate memory used by the cached presentations
+   */
+  public synchronized void setMaxBytes( long maxBytes ) {
+    this.maxBytes = maxBytes;
+    evict( null );
+  }
+
+  /**
+   * Gets timeToLiveMs
+   *
+   * @return value of timeToLiveMs
+   */
+  public synchronized long getTimeToLiveMs() {
+    return timeToLiveMs;
+  }
+
+  /**
+   * @param timeToLiveMs How long a render stays fresh in milliseconds, 0 to keep it until it's evicted or invalidated
+   */
+  public synchronized void setTimeToLiveMs( long timeToLiveMs ) {
+    this.timeToLiveMs = timeToLiveMs;
+  }
+}
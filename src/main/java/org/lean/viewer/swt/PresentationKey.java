@@ -0,0 +1,67 @@
+package org.lean.viewer.swt;
+
+import org.lean.presentation.variable.LeanParameter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Identifies the output of a presentation: its name and the values of the parameters it's rendered with.
+ * The order in which the parameters are given doesn't matter.
+ */
+public class PresentationKey {
+
+  private final String presentationName;
+  private final Map<String, String> parameterValues;
+
+  public PresentationKey( String presentationName, List<LeanParameter> parameters ) {
+    this.presentationName = presentationName;
+    Map<String, String> values = new TreeMap<>();
+    if ( parameters != null ) {
+      for ( LeanParameter parameter : parameters ) {
+        values.put( parameter.getParameterName(), parameter.getParameterValue() );
+      }
+    }
+    this.parameterValues = Collections.unmodifiableMap( values );
+  }
+
+  @Override public boolean equals( Object o ) {
+    if ( this == o ) {
+      return true;
+    }
+    if ( o == null || getClass() != o.getClass() ) {
+      return false;
+    }
+    PresentationKey that = (PresentationKey) o;
+    return Objects.equals( presentationName, that.presentationName ) && parameterValues.equals( that.parameterValues );
+  }
+
+  @Override public int hashCode() {
+    return Objects.hash( presentationName, parameterValues );
+  }
+
+  @Override public String toString() {
+    return parameterValues.isEmpty() ? presentationName : presentationName + " " + parameterValues;
+  }
+
+  /**
+   * Gets presentationName
+   *
+   * @return value of presentationName
+   */
+  public String getPresentationName() {
+    return presentationName;
+  }
+
+  /**
+   * Gets parameterValues
+   *
+   * @return value of parameterValues, sorted by parameter name
+   */
+  public Map<String, String> getParameterValues() {
+    return parameterValues;
+  }
+}
@@ -0,0 +1,60 @@
+package org.lean.viewer.swt;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The measurements of a single presentation: rolling timings per render stage and the size of the last page produced.
+ */
+public class PresentationMetrics {
+
+  private final String presentationName;
+  private final Map<RenderStage, RollingTimings> stageTimings;
+  private final int windowSize;
+  private long svgBytes;
+  private int drawnItemCount;
+
+  public PresentationMetrics( String presentationName, int windowSize ) {
+    this.presentationName = presentationName;
+    this.windowSize = windowSize;
+    this.stageTimings = new EnumMap<>( RenderStage.class );
+  }
+
+  /**
+   * Get the timings of a stage, created when the stage wasn't measured yet
+   *
+   * @param stage The render stage
+   * @return The timings of the stage
+   */
+  public synchronized RollingTimings getTimings( RenderStage stage ) {
+    return stageTimings.computeIfAbsent( stage, s -> new RollingTimings( windowSize ) );
+  }
+
+  synchronized void setPageSize( long svgBytes, int drawnItemCount ) {
+    this.svgBytes = svgBytes;
+    this.drawnItemCount = drawnItemCount;
+  }
+
+  /**
+   * Gets presentationName
+   *
+   * @return value of presentationName
+   */
+  public String getPresentationName() {
+    return presentationName;
+  }
+
+  /**
+   * @return The estimated size of the SVG document of the last page produced
+   */
+  public synchronized long getSvgBytes() {
+    return svgBytes;
+  }
+
+  /**
+   * @return The number of items drawn on the last page produced
+   */
+  public synchronized int getDrawnItemCount() {
+    return drawnItemCount;
+  }
+}
@@ -0,0 +1,587 @@
+package org.lean.viewer.swt;
+
+import org.apache.hop.core.logging.ILoggingObject;
+import org.apache.hop.core.logging.LogChannel;
+import org.apache.hop.metadata.api.IHopMetadataProvider;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.Rectangle;
+import org.lean.presentation.LeanPresentation;
+import org.lean.presentation.page.LeanPage;
+import org.lean.presentation.variable.LeanParameter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders presentations and materializes their pages in the background.
+ * The returned futures can be cancelled: a render which didn't start yet is skipped, a running one is interrupted.
+ * Renders of the same presentation with the same parameter values are shared while they're in progress: a render is
+ * only abandoned when every future returned for it is cancelled.
+ * Speculative renders run on a separate low priority executor and are limited in number. When a regular render asks
+ * for a presentation whose speculative render didn't start yet, it's moved to the regular executor.
+ * The rasters of all materialized pages are kept within a shared {@link RasterBudget}.
+ */
+public class PresentationRenderService {
+
+  public static final int DEFAULT_MAX_SPECULATIVE_RENDERS = 2;
+
+  /**
+   * The number of threads reading and writing the snapshots of the disk cache
+   */
+  public static final int SNAPSHOT_THREADS = 2;
+
+  private static final AtomicInteger threadNumber = new AtomicInteger( 0 );
+
+  private final PresentationRenderer renderer;
+  private final ExecutorService executor;
+  private final ExecutorService backgroundExecutor;
+  private final ExecutorService tileExecutor;
+  private ExecutorService progressiveExecutor;
+  private ExecutorService snapshotExecutor;
+  private final RasterBudget rasterBudget;
+  private final PresentationCache cache;
+  private DiskRenderCache diskCache;
+
+  // The renders in progress. Refreshes are kept apart so that they never replace a regular render which callers are
+  // waiting for, and so that new callers don't end up waiting for a refresh. Both are guarded by inFlight.
+  //
+  private final Map<PresentationKey, SharedRender> inFlight;
+  private final Map<PresentationKey, SharedRender> refreshes;
+  private int maxSpeculativeRenders;
+  private int speculativeRenders;
+
+  /**
+   * A render in progress and the number of futures still waiting for it.
+   * The render can be submitted to more than one executor: whichever task starts first renders, the others do nothing.
+   */
+  private static class SharedRender {
+    private final CompletableFuture<RenderedPresentation> future;
+    private final Callable<RenderedPresentation> render;
+    private final AtomicBoolean started;
+    private final List<Future<?>> tasks;
+    private boolean background;
+    private boolean foreground;
+    private int interested;
+
+    private SharedRender( Callable<RenderedPresentation> render, boolean background ) {
+      this.future = new CompletableFuture<>();
+      this.render = render;
+      this.started = new AtomicBoolean();
+      this.tasks = new ArrayList<>();
+      this.background = background;
+      this.foreground = !background;
+      future.whenComplete( ( rendered, error ) -> {
+        if ( future.isCancelled() ) {
+          cancelTasks();
+        }
+      } );
+    }
+
+    private void submitTo( ExecutorService taskExecutor ) {
+      Future<?> task = taskExecutor.submit( () -> {
+        if ( future.isDone() || !started.compareAndSet( false, true ) ) {
+          return;
+        }
+        try {
+          future.complete( render.call() );
+        } catch ( Throwable e ) {
+          future.completeExceptionally( e );
+        }
+      } );
+      synchronized ( tasks ) {
+        tasks.add( task );
+      }
+      if ( future.isCancelled() ) {
+        cancelTasks();
+      }
+    }
+
+    private void cancelTasks() {
+      synchronized ( tasks ) {
+        for ( Future<?> task : tasks ) {
+          task.cancel( true );
+        }
+      }
+    }
+  }
+
+  public PresentationRenderService( ILoggingObject loggingObject, IHopMetadataProvider metadataProvider ) {
+    this( new PresentationRenderer( loggingObject, metadataProvider ), createExecutor( 1 ) );
+  }
+
+  public PresentationRenderService( PresentationRenderer renderer, ExecutorService executor ) {
+    this( renderer, executor, createBackgroundExecutor( DEFAULT_MAX_SPECULATIVE_RENDERS ) );
+  }
+
+  public PresentationRenderService( PresentationRenderer renderer, ExecutorService executor, ExecutorService backgroundExecutor ) {
+    this( renderer, executor, backgroundExecutor, createTileExecutor( 1 ) );
+  }
+
+  public PresentationRenderService( PresentationRenderer renderer, ExecutorService executor, ExecutorService backgroundExecutor,
+                                    ExecutorService tileExecutor ) {
+    this.renderer = renderer;
+    this.executor = executor;
+    this.backgroundExecutor = backgroundExecutor;
+    this.tileExecutor = tileExecutor;
+    this.rasterBudget = new RasterBudget();
+    this.cache = new PresentationCache( rasterBudget );
+    this.inFlight = new HashMap<>();
+    this.refreshes = new HashMap<>();
+    this.maxSpeculativeRenders = DEFAULT_MAX_SPECULATIVE_RENDERS;
+  }
+
+  /**
+   * Create an executor with daemon threads to render presentations with.
+   *
+   * @param threads The number of presentations to render at once
+   * @return A new executor
+   */
+  public static ExecutorService createExecutor( int threads ) {
+    return createExecutor( threads, "lean-render-", Thread.NORM_PRIORITY );
+  }
+
+  /**
+   * Create an executor with low priority daemon threads for work nobody is waiting for yet.
+   *
+   * @param threads The number of presentations to render at once
+   * @return A new executor
+   */
+  public static ExecutorService createBackgroundExecutor( int threads ) {
+    return createExecutor( threads, "lean-render-background-", Thread.MIN_PRIORITY );
+  }
+
+  /**
+   * Create an executor with daemon threads to rasterize the tiles of zoomed pages with.
+   *
+   * @param threads The number of tiles to rasterize at once
+   * @return A new executor
+   */
+  public static ExecutorService createTileExecutor( int threads ) {
+    return createExecutor( threads, "lean-render-tile-", Thread.NORM_PRIORITY );
+  }
+
+  /**
+   * Create a render service to share between many viewers, rendering as many presentations at once as there are cores.
+   * Viewers showing the same presentation with the same parameter values share a single render.
+   *
+   * @param loggingObject    The logging object to render with
+   * @param metadataProvider The metadata provider to load presentations from
+   * @return A new render service
+   */
+  public static PresentationRenderService createShared( ILoggingObject loggingObject, IHopMetadataProvider metadataProvider ) {
+    int cores = Runtime.getRuntime().availableProcessors();
+    return new PresentationRenderService( new PresentationRenderer( loggingObject, metadataProvider ), createExecutor( cores ),
+      createBackgroundExecutor( DEFAULT_MAX_SPECULATIVE_RENDERS ), createTileExecutor( Math.max( 1, cores / 2 ) ) );
+  }
+
+  private static ExecutorService createExecutor( int threads, String namePrefix, int priority ) {
+    return Executors.newFixedThreadPool( threads, runnable -> {
+      Thread thread = new Thread( runnable, namePrefix + threadNumber.incrementAndGet() );
+      thread.setDaemon( true );
+      thread.setPriority( priority );
+      return thread;
+    } );
+  }
+
+  /**
+   * Render a presentation in the background.
+   * A render of the same presentation with the same parameter values is taken from the cache if available.
+   *
+   * @param presentationName The name of the presentation to render
+   * @param parameters       The parameters to render the presentation with
+   * @return A future for the rendered presentation. Cancelling it abandons the render.
+   */
+  public CompletableFuture<RenderedPresentation> submit( String presentationName, List<LeanParameter> parameters ) {
+    return submit( presentationName, parameters, true );
+  }
+
+  /**
+   * Render a presentation in the background.
+   *
+   * @param presentationName The name of the presentation to render
+   * @param parameters       The parameters to render the presentation with
+   * @param useCache         Set to false to render the presentation again, even if it's cached or being rendered. A
+   *                         render in progress is left alone, only refreshes of the same presentation are shared.
+   * @return A future for the rendered presentation. Cancelling it abandons the render.
+   */
+  public CompletableFuture<RenderedPresentation> submit( String presentationName, List<LeanParameter> parameters, boolean useCache ) {
+    return submit( new PresentationKey( presentationName, parameters ), parameters, useCache, false, false );
+  }
+
+  /**
+   * Speculatively render a presentation on the low priority executor, for example because the user is likely to open it.
+   * The result ends up in the cache. If the presentation is opened while it's being rendered the render is shared.
+   *
+   * @param presentationName The name of the presentation to render
+   * @param parameters       The parameters to render the presentation with
+   * @return A future for the rendered presentation or null if too many speculative renders are in progress
+   */
+  public CompletableFuture<RenderedPresentation> submitSpeculative( String presentationName, List<LeanParameter> parameters ) {
+    return submit( new PresentationKey( presentationName, parameters ), parameters, true, true, true );
+  }
+
+  /**
+   * Render a presentation ahead of time on the low priority executor, like a speculative render but without counting
+   * towards the maximum number of speculative renders. The caller is expected to submit these one at a time.
+   *
+   * @param presentationName The name of the presentation to render
+   * @param parameters       The parameters to render the presentation with
+   * @return A future for the rendered presentation
+   */
+  public CompletableFuture<RenderedPresentation> submitWarmUp( String presentationName, List<LeanParameter> parameters ) {
+    return submit( new PresentationKey( presentationName, parameters ), parameters, true, true, false );
+  }
+
+  private CompletableFuture<RenderedPresentation> submit( PresentationKey key, List<LeanParameter> parameters, boolean useCache, boolean background,
+                                                          boolean speculative ) {
+    if ( useCache ) {
+      RenderedPresentation cached = cache.get( key );
+      if ( !background ) {
+        renderer.getMetrics().recordPresentationCacheLookup( cached != null );
+      }
+      if ( cached != null ) {
+        if ( !background ) {
+          // Possibly prefetched, in which case it isn't on disk yet. The disk cache skips pages it already has.
+          //
+          storeSnapshot( key, cached );
+        }
+        return CompletableFuture.completedFuture( cached );
+      }
+    }
+
+    Map<PresentationKey, SharedRender> renders = useCache ? inFlight : refreshes;
+    SharedRender shared;
+    synchronized ( inFlight ) {
+      shared = renders.get( key );
+      if ( shared == null ) {
+        if ( speculative && speculativeRenders >= maxSpeculativeRenders ) {
+          return null;
+        }
+        SharedRender registered = new SharedRender( () -> {
+          RenderedPresentation rendered = renderer.render( key.getPresentationName(), parameters, cache.findLatest( key.getPresentationName() ) );
+          rasterBudget.touch( rendered.getPage( 0 ) );
+          cache.put( key, rendered );
+          return rendered;
+        }, background );
+        registered.submitTo( background ? backgroundExecutor : executor );
+        renders.put( key, registered );
+        if ( speculative ) {
+          speculativeRenders++;
+        }
+        registered.future.whenComplete( ( rendered, error ) -> {
+          boolean store;
+          synchronized ( inFlight ) {
+            renders.remove( key, registered );
+            if ( speculative ) {
+              speculativeRenders--;
+            }
+            store = registered.foreground;
+          }
+          // Only presentations somebody asked for go to disk, prefetching would push those out
+          //
+          if ( store && error == null ) {
+            storeSnapshot( key, rendered );
+          }
+        } );
+        shared = registered;
+      } else if ( !background ) {
+        shared.foreground = true;
+      }
+      if ( !background && shared.background && !shared.started.get() ) {
+        // Somebody is waiting for a speculative render which is still queued behind other background work: promote it
+        // to the regular executor. The queued background task does nothing once the render started.
+        //
+        shared.background = false;
+        shared.submitTo( executor );
+      }
+      shared.interested++;
+    }
+    return follow( renders, key, shared );
+  }
+
+  /**
+   * Render the first page of a presentation group by group next to a regular render of it, see {@link ProgressiveRender}.
+   * The groups run on an executor of their own with a thread per processor core, created when first needed, so that
+   * they don't wait for the regular render.
+   *
+   * @param presentationName The name of the presentation to render
+   * @param parameters       The parameters to render the presentation with
+   * @return A future for the progressive render, completed with null if the first page can't be split in groups.
+   * Cancelling it also cancels the groups which were submitted already.
+   */
+  public CompletableFuture<ProgressiveRender> submitProgressive( String presentationName, List<LeanParameter> parameters ) {
+    ExecutorService groupExecutor = getProgressiveExecutor();
+
+    // The groups submitted so far, so that they can be cancelled with the progressive render
+    //
+    List<CompletableFuture<ComponentRegion>> submitted = new ArrayList<>();
+    AtomicBoolean cancelled = new AtomicBoolean();
+    CompletableFuture<ProgressiveRender> progressive = execute( groupExecutor, () -> {
+      LeanPresentation presentation = renderer.loadPresentation( presentationName );
+      List<LeanPresentation> copies = ProgressiveRender.split( renderer, presentation );
+      if ( copies.isEmpty() ) {
+        return null;
+      }
+      List<CompletableFuture<ComponentRegion>> regions = new ArrayList<>();
+      for ( LeanPresentation copy : copies ) {
+        CompletableFuture<ComponentRegion> region = execute( groupExecutor, () -> ProgressiveRender.renderRegion( renderer, copy, parameters ) );
+        regions.add( region );
+        synchronized ( submitted ) {
+          submitted.add( region );
+          if ( cancelled.get() ) {
+            region.cancel( true );
+          }
+        }
+      }
+      LeanPage page = presentation.getPages().get( 0 );
+      return new ProgressiveRender( presentationName, page.getWidth(), page.getHeight(), regions );
+    } );
+    progressive.whenComplete( ( split, error ) -> {
+      if ( progressive.isCancelled() ) {
+        synchronized ( submitted ) {
+          cancelled.set( true );
+          for ( CompletableFuture<ComponentRegion> region : submitted ) {
+            region.cancel( true );
+          }
+        }
+      }
+    } );
+    return progressive;
+  }
+
+  private synchronized ExecutorService getProgressiveExecutor() {
+    if ( progressiveExecutor == null ) {
+      progressiveExecutor = createExecutor( Runtime.getRuntime().availableProcessors(), "lean-render-progressive-", Thread.NORM_PRIORITY );
+    }
+    return progressiveExecutor;
+  }
+
+  /**
+   * Snapshots are read and written on an executor of their own, created when first needed: a viewer waits for the
+   * snapshot of its first page so it can't queue up behind speculative renders on the background executor.
+   */
+  private synchronized ExecutorService getSnapshotExecutor() {
+    if ( snapshotExecutor == null ) {
+      snapshotExecutor = createExecutor( SNAPSHOT_THREADS, "lean-render-snapshot-", Thread.NORM_PRIORITY );
+    }
+    return snapshotExecutor;
+  }
+
+  private void storeSnapshot( PresentationKey key, RenderedPresentation rendered ) {
+    DiskRenderCache disk = diskCache;
+    if ( disk == null ) {
+      return;
+    }
+    getSnapshotExecutor().execute( () -> {
+      try {
+        disk.store( key, rendered );
+      } catch ( Exception e ) {
+        new LogChannel( renderer.getLoggingObject() ).logError( "Unable to store presentation '" + key + "' in the disk cache", e );
+      }
+    } );
+  }
+
+  /**
+   * Load the last known first page of a presentation from the disk cache, if one is configured.
+   *
+   * @param presentationName The name of the presentation
+   * @param parameters       The parameters of the presentation
+   * @return A future for the snapshot of the page, null if there is none or it's outdated
+   */
+  public CompletableFuture<PageSnapshot> loadSnapshot( String presentationName, List<LeanParameter> parameters ) {
+    DiskRenderCache disk = diskCache;
+    if ( disk == null ) {
+      return CompletableFuture.completedFuture( null );
+    }
+    PresentationKey key = new PresentationKey( presentationName, parameters );
+    return execute( getSnapshotExecutor(), () -> disk.load( key ) );
+  }
+
+  /**
+   * Give every caller its own future so that one cancelling it doesn't affect the others.
+   */
+  private CompletableFuture<RenderedPresentation> follow( Map<PresentationKey, SharedRender> renders, PresentationKey key, SharedRender shared ) {
+    CompletableFuture<RenderedPresentation> result = new CompletableFuture<>();
+    shared.future.whenComplete( ( rendered, error ) -> {
+      if ( error != null ) {
+        result.completeExceptionally( error );
+      } else {
+        result.complete( rendered );
+      }
+    } );
+    result.whenComplete( ( rendered, error ) -> {
+      if ( result.isCancelled() ) {
+        boolean abandon;
+        synchronized ( inFlight ) {
+          abandon = --shared.interested == 0;
+          if ( abandon ) {
+            renders.remove( key, shared );
+          }
+        }
+        if ( abandon ) {
+          shared.future.cancel( true );
+        }
+      }
+    } );
+    return result;
+  }
+
+  /**
+   * Materialize a page in the background: convert it to SVG and rasterize it.
+   * A page which is already materialized is simply registered as used.
+   *
+   * @param page The page to materialize
+   * @return A future for the materialized page
+   */
+  public CompletableFuture<RenderedPage> materialize( RenderedPage page ) {
+    if ( page.isMaterialized() ) {
+      rasterBudget.touch( page );
+      return CompletableFuture.completedFuture( page );
+    }
+    return execute( executor, () -> {
+      page.materialize( renderer );
+      rasterBudget.touch( page );
+      return page;
+    } );
+  }
+
+  /**
+   * Rasterize an area of a page at a certain scale in the background.
+   * Tiles have their own executor so that they don't wait for presentations being rendered.
+   *
+   * @param page  The page to rasterize
+   * @param scale The scale to rasterize the page at
+   * @param area  The area to rasterize in scaled pixels
+   * @return A future for the raster of the area
+   */
+  public CompletableFuture<ImageData> rasterizeTile( RenderedPage page, double scale, Rectangle area ) {
+    return execute( tileExecutor, () -> page.rasterize( renderer, scale, area.x, area.y, area.width, area.height ) );
+  }
+
+  private <T> CompletableFuture<T> execute( ExecutorService taskExecutor, Callable<T> callable ) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    Future<?> task = taskExecutor.submit( () -> {
+      if ( result.isDone() ) {
+        return;
+      }
+      try {
+        result.complete( callable.call() );
+      } catch ( Throwable e ) {
+        result.completeExceptionally( e );
+      }
+    } );
+    result.whenComplete( ( value, error ) -> {
+      if ( result.isCancelled() ) {
+        task.cancel( true );
+      }
+    } );
+    return result;
+  }
+
+  /**
+   * Stop rendering, pending renders are abandoned.
+   */
+  public void shutdown() {
+    executor.shutdownNow();
+    backgroundExecutor.shutdownNow();
+    tileExecutor.shutdownNow();
+    synchronized ( this ) {
+      if ( progressiveExecutor != null ) {
+        progressiveExecutor.shutdownNow();
+      }
+      if ( snapshotExecutor != null ) {
+        snapshotExecutor.shutdownNow();
+      }
+    }
+  }
+
+  /**
+   * Gets diskCache
+   *
+   * @return value of diskCache
+   */
+  public DiskRenderCache getDiskCache() {
+    return diskCache;
+  }
+
+  /**
+   * @param diskCache The disk cache to store the first page of every rendered presentation in, null to disable it
+   */
+  public void setDiskCache( DiskRenderCache diskCache ) {
+    this.diskCache = diskCache;
+  }
+
+  /**
+   * Gets renderer
+   *
+   * @return value of renderer
+   */
+  public PresentationRenderer getRenderer() {
+    return renderer;
+  }
+
+  /**
+   * Gets rasterBudget
+   *
+   * @return value of rasterBudget
+   */
+  public RasterBudget getRasterBudget() {
+    return rasterBudget;
+  }
+
+  /**
+   * Gets cache
+   *
+   * @return value of cache
+   */
+  public PresentationCache getCache() {
+    return cache;
+  }
+
+  /**
+   * Gets maxSpeculativeRenders
+   *
+   * @return value of maxSpeculativeRenders
+   */
+  public int getMaxSpeculativeRenders() {
+    synchronized ( inFlight ) {
+      return maxSpeculativeRenders;
+    }
+  }
+
+  /**
+   * @param maxSpeculativeRenders The maximum number of speculative renders in progress at once
+   */
+  public void setMaxSpeculativeRenders( int maxSpeculativeRenders ) {
+    synchronized ( inFlight ) {
+      this.maxSpeculativeRenders = maxSpeculativeRenders;
+    }
+  }
+
+  /**
+   * Gets executor
+   *
+   * @return value of executor
+   */
+  public ExecutorService getExecutor() {
+    return executor;
+  }
+
+  /**
+   * Gets backgroundExecutor
+   *
+   * @return value of backgroundExecutor
+   */
+  public ExecutorService getBackgroundExecutor() {
+    return backgroundExecutor;
+  }
+}
@@ -0,0 +1,249 @@
+package org.lean.viewer.swt;
+
+import org.apache.batik.anim.dom.SAXSVGDocumentFactory;
+import org.apache.batik.anim.dom.SVGDOMImplementation;
+import org.apache.batik.svggen.SVGGraphics2D;
+import org.apache.batik.util.XMLResourceDescriptor;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.logging.ILoggingObject;
+import org.apache.hop.metadata.api.IHopMetadataProvider;
+import org.apache.hop.metadata.api.IHopMetadataSerializer;
+import org.lean.core.exception.LeanException;
+import org.lean.presentation.LeanPresentation;
+import org.lean.presentation.layout.LeanLayoutResults;
+import org.lean.presentation.layout.LeanRenderPage;
+import org.lean.presentation.variable.LeanParameter;
+import org.lean.render.IRenderContext;
+import org.lean.render.context.PresentationRenderContext;
+import org.w3c.dom.DOMImplementation;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.svg.SVGDocument;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Loads, lays out and renders a presentation and converts its pages to SVG documents.
+ * This doesn't use any SWT device so it can run on any thread.
+ */
+public class PresentationRenderer {
+
+  private final ILoggingObject loggingObject;
+  private final IHopMetadataProvider metadataProvider;
+
+  // Serialize the rendered page to SVG XML and parse it back instead of importing the DOM directly
+  //
+  private boolean svgXmlRoundTrip;
+
+  private RenderMetrics metrics;
+
+  public PresentationRenderer( ILoggingObject loggingObject, IHopMetadataProvider metadataProvider ) {
+    this.loggingObject = loggingObject;
+    this.metadataProvider = metadataProvider;
+    this.svgXmlRoundTrip = false;
+    this.metrics = new RenderMetrics();
+  }
+
+  /**
+   * Load the presentation with the given name and render it with the given parameters.
+   *
+   * @param presentationName The name of the presentation to render
+   * @param parameters       The parameters to render the presentation with
+   * @return The rendered presentation
+   * @throws HopException  In case the presentation can't be found or has no output
+   * @throws LeanException In case of a layout or rendering error
+   * @throws IOException   In case the generated SVG can't be read back
+   */
+  public RenderedPresentation render( String presentationName, List<LeanParameter> parameters ) throws HopException, LeanException, IOException {
+    return render( presentationName, parameters, null );
+  }
+
+  /**
+   * Load the presentation with the given name and render it with the given parameters.
+   * When an earlier render of the same presentation with other parameter values is given, the first page is derived from
+   * the raster of that render: only the areas of the components which depend on the changed parameters, or which moved
+   * because of them, are rasterized again.
+   *
+   * @param presentationName The name of the presentation to render
+   * @param parameters       The parameters to render the presentation with
+   * @param base             An earlier render of the same presentation or null
+   * @return The rendered presentation
+   * @throws HopException  In case the presentation can't be found or has no output
+   * @throws LeanException In case of a layout or rendering error
+   * @throws IOException   In case the generated SVG can't be read back
+   */
+  public RenderedPresentation render( String presentationName, List<LeanParameter> parameters, RenderedPresentation base )
+    throws HopException, LeanException, IOException {
+    RenderedPresentation rendered = renderPages( presentationName, parameters );
+    List<RenderedPage> pages = rendered.getPages();
+
+    // Only the first page is materialized right away, the others when they're needed
+    //
+    if ( base == null || !materializeIncrementally( rendered.getPresentation(), rendered.getParameters(), base, pages.get( 0 ) ) ) {
+      pages.get( 0 ).materialize( this );
+    }
+    return rendered;
+  }
+
+  /**
+   * Load the presentation with the given name and render it with the given parameters without materializing any pages.
+   *
+   * @param presentationName The name of the presentation to render
+   * @param parameters       The parameters to render the presentation with
+   * @return The rendered presentation
+   * @throws HopException  In case the presentation can't be found or has no output
+   * @throws LeanException In case of a layout or rendering error
+   */
+  public RenderedPresentation renderPages( String presentationName, List<LeanParameter> parameters ) throws HopException, LeanException {
+    return renderPages( loadPresentation( presentationName ), parameters );
+  }
+
+  /**
+   * Load the presentation with the given name from the metadata provider.
+   *
+   * @param presentationName The name of the presentation to load
+   * @return The presentation
+   * @throws HopException In case the presentation can't be found
+   */
+  public LeanPresentation loadPresentation( String presentationName ) throws HopException {
+    long start = metrics.start();
+    IHopMetadataSerializer<LeanPresentation> presentationSerializer = metadataProvider.getSerializer( LeanPresentation.class );
+    LeanPresentation presentation = presentationSerializer.load( presentationName );
+    if ( presentation == null ) {
+      throw new HopException( "Unable to find presentation '" + presentationName + "'" );
+    }
+    metrics.stop( presentationName, RenderStage.LOAD, start );
+    return presentation;
+  }
+
+  /**
+   * Render an already loaded presentation with the given parameters without materializing any pages.
+   *
+   * @param presentation The presentation to render
+   * @param parameters   The parameters to render the presentation with
+   * @return The rendered presentation
+   * @throws HopException  In case the presentation has no output
+   * @throws LeanException In case of a layout or rendering error
+   */
+  public RenderedPresentation renderPages( LeanPresentation presentation, List<LeanParameter> parameters ) throws HopException, LeanException {
+    String presentationName = presentation.getName();
+    List<LeanParameter> renderParameters = parameters == null ? new ArrayList<>() : new ArrayList<>( parameters );
+    IRenderContext renderContext = new PresentationRenderContext( presentation );
+
+    // Calculate the layout (also grabs data)
+    long start = metrics.start();
+    LeanLayoutResults results = presentation.doLayout( loggingObject, renderContext, metadataProvider, renderParameters );
+    metrics.stop( presentationName, RenderStage.LAYOUT, start );
+
+    // render
+    start = metrics.start();
+    presentation.render( results, metadataProvider );
+    metrics.stop( presentationName, RenderStage.RENDER, start );
+
+    if ( results.getRenderPages().isEmpty() ) {
+      throw new HopException( "There was no output after rendering (0 pages) of presentation " + presentationName );
+    }
+
+    List<RenderedPage> pages = new ArrayList<>();
+    for ( LeanRenderPage renderPage : results.getRenderPages() ) {
+      pages.add( new RenderedPage( presentation, pages.size(), renderPage ) );
+    }
+    return new RenderedPresentation( presentationName, renderParameters, presentation, results, pages );
+  }
+
+  private boolean materializeIncrementally( LeanPresentation presentation, List<LeanParameter> parameters, RenderedPresentation base,
+                                           RenderedPage page ) throws LeanException, IOException {
+    // With the same parameter values the data might still have changed, only derive from other parameter values
+    //
+    Set<String> changedParameters = ParameterDependencies.findChangedParameters( base.getParameters(), parameters );
+    if ( changedParameters.isEmpty() || base.getPageCount() == 0 ) {
+      return false;
+    }
+    RenderedPage basePage = base.getPage( 0 );
+    PageDamage damage = PageDamage.calculate( new ParameterDependencies( presentation ), changedParameters, basePage.getRenderPage(), page.getRenderPage() );
+    return damage != null && page.materialize( this, basePage, damage );
+  }
+
+  /**
+   * Turn a render page into an SVG document which Batik can render.
+   * By default the DOM built by the SVG graphics context of the page is imported straight into an SVG document.
+   * With the SVG XML round trip enabled the page is serialized to XML and parsed back, like it used to be done.
+   * Either way the graphics context of the page hands over its content: afterwards the page doesn't produce SVG anymore.
+   *
+   * @param renderPage The page to convert
+   * @return The SVG document of the page
+   * @throws LeanException In case the page can't be serialized
+   * @throws IOException   In case the serialized page can't be parsed
+   */
+  public SVGDocument createSvgDocument( LeanRenderPage renderPage ) throws LeanException, IOException {
+    if ( svgXmlRoundTrip ) {
+      String svgXml = renderPage.getSvgXml();
+      String parser = XMLResourceDescriptor.getXMLParserClassName();
+      SAXSVGDocumentFactory f = new SAXSVGDocumentFactory( parser );
+      return f.createSVGDocument( "", new StringReader( svgXml ) );
+    }
+
+    SVGGraphics2D gc = renderPage.getGc();
+    Element root = gc.getRoot();
+
+    DOMImplementation domImplementation = SVGDOMImplementation.getDOMImplementation();
+    SVGDocument document = (SVGDocument) domImplementation.createDocument( SVGDOMImplementation.SVG_NAMESPACE_URI, "svg", null );
+    Node svgRoot = document.importNode( root, true );
+    document.replaceChild( svgRoot, document.getDocumentElement() );
+    return document;
+  }
+
+  /**
+   * Gets svgXmlRoundTrip
+   *
+   * @return value of svgXmlRoundTrip
+   */
+  public boolean isSvgXmlRoundTrip() {
+    return svgXmlRoundTrip;
+  }
+
+  /**
+   * @param svgXmlRoundTrip The svgXmlRoundTrip to set
+   */
+  public void setSvgXmlRoundTrip( boolean svgXmlRoundTrip ) {
+    this.svgXmlRoundTrip = svgXmlRoundTrip;
+  }
+
+  /**
+   * Gets metrics
+   *
+   * @return value of metrics
+   */
+  public RenderMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * @param metrics The metrics to set
+   */
+  public void setMetrics( RenderMetrics metrics ) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Gets loggingObject
+   *
+   * @return value of loggingObject
+   */
+  public ILoggingObject getLoggingObject() {
+    return loggingObject;
+  }
+
+  /**
+   * Gets metadataProvider
+   *
+   * @return value of metadataProvider
+   */
+  public IHopMetadataProvider getMetadataProvider() {
+    return metadataProvider;
+  }
+}
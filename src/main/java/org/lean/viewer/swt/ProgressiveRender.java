@@ -0,0 +1,177 @@
+package org.lean.viewer.swt;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.metadata.serializer.json.JsonMetadataParser;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.Rectangle;
+import org.json.simple.JSONObject;
+import org.lean.core.LeanGeometry;
+import org.lean.core.draw.DrawnItem;
+import org.lean.core.exception.LeanException;
+import org.lean.presentation.LeanPresentation;
+import org.lean.presentation.page.LeanPage;
+import org.lean.presentation.variable.LeanParameter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Renders the first page of a presentation group by group so that a viewer can fill in the page while the complete
+ * render is still in progress. The components of the page are split in {@link ComponentGroups}, every group is laid
+ * out and rendered on its own as a copy of the presentation with only those components, concurrently with the other
+ * groups. As soon as a group is done, the area it covers is rasterized: fast components show up first, slow ones later.
+ * The regions are a preview without interactions, the complete render of the presentation replaces them.
+ */
+public class ProgressiveRender {
+
+  private final String presentationName;
+  private final int pageWidth;
+  private final int pageHeight;
+  private final List<CompletableFuture<ComponentRegion>> regions;
+
+  public ProgressiveRender( String presentationName, int pageWidth, int pageHeight, List<CompletableFuture<ComponentRegion>> regions ) {
+    this.presentationName = presentationName;
+    this.pageWidth = pageWidth;
+    this.pageHeight = pageHeight;
+    this.regions = regions;
+  }
+
+  /**
+   * Split the first page of a presentation into copies of the presentation with a single page holding one group of
+   * components each.
+   *
+   * @param renderer     The renderer the presentation was loaded with
+   * @param presentation The presentation to split
+   * @return A copy of the presentation per group, empty if the page has fewer than two groups
+   * @throws HopException In case the presentation can't be copied
+   */
+  public static List<LeanPresentation> split( PresentationRenderer renderer, LeanPresentation presentation ) throws HopException {
+    List<LeanPresentation> copies = new ArrayList<>();
+    if ( presentation.getPages().isEmpty() ) {
+      return copies;
+    }
+    List<List<String>> groups = ComponentGroups.find( presentation.getPages().get( 0 ) );
+    if ( groups.size() < 2 ) {
+      return copies;
+    }
+
+    // Every group gets a deep copy since layout and render keep state in the components
+    //
+    JsonMetadataParser<LeanPresentation> parser = new JsonMetadataParser<>( LeanPresentation.class, renderer.getMetadataProvider() );
+    JSONObject jsonObject = parser.getJsonObject( presentation );
+    for ( int i = 0; i < groups.size(); i++ ) {
+      Set<String> componentNames = new HashSet<>( groups.get( i ) );
+      LeanPresentation copy = parser.loadJsonObject( LeanPresentation.class, jsonObject );
+      List<LeanPage> pages = copy.getPages();
+      pages.subList( 1, pages.size() ).clear();
+      pages.get( 0 ).getComponents().removeIf( component -> !componentNames.contains( component.getName() ) );
+
+      // Keep the timings of the groups apart from the ones of the complete presentation
+      //
+      copy.setName( presentation.getName() + " [group " + ( i + 1 ) + "]" );
+      copies.add( copy );
+    }
+    return copies;
+  }
+
+  /**
+   * Lay out and render the copy of a presentation for a single group and rasterize the area the group covers.
+   *
+   * @param renderer   The renderer to render with
+   * @param copy       The copy of the presentation, see {@link #split(PresentationRenderer, LeanPresentation)}
+   * @param parameters The parameters to render the presentation with
+   * @return The raster of the area of the group or null if it didn't draw anything
+   * @throws HopException  In case the copy has no output
+   * @throws LeanException In case of a layout or rendering error
+   * @throws IOException   In case the SVG of the page can't be read
+   */
+  public static ComponentRegion renderRegion( PresentationRenderer renderer, LeanPresentation copy, List<LeanParameter> parameters )
+    throws HopException, LeanException, IOException {
+    RenderedPage page = renderer.renderPages( copy, parameters ).getPage( 0 );
+    LeanPage leanPage = page.getRenderPage().getPage();
+
+    // The area of every component, from the drawn items it produced
+    //
+    Map<String, Rectangle> componentAreas = new LinkedHashMap<>();
+    for ( DrawnItem drawnItem : page.getRenderPage().getDrawnItems() ) {
+      LeanGeometry geometry = drawnItem.getGeometry();
+      if ( geometry == null || drawnItem.getComponentName() == null ) {
+        continue;
+      }
+      Rectangle itemBounds = new Rectangle( geometry.getX(), geometry.getY(), geometry.getWidth(), geometry.getHeight() );
+      componentAreas.merge( drawnItem.getComponentName(), itemBounds, Rectangle::union );
+    }
+
+    Rectangle pageBounds = new Rectangle( 0, 0, leanPage.getWidth(), leanPage.getHeight() );
+    int margin = PageDamage.MARGIN;
+    List<Rectangle> areas = new ArrayList<>();
+    Rectangle bounds = null;
+    for ( Rectangle componentArea : componentAreas.values() ) {
+      Rectangle area = new Rectangle( componentArea.x - margin, componentArea.y - margin, componentArea.width + 2 * margin,
+        componentArea.height + 2 * margin ).intersection( pageBounds );
+      if ( area.isEmpty() ) {
+        continue;
+      }
+      areas.add( area );
+      bounds = bounds == null ? area : bounds.union( area );
+    }
+    if ( bounds == null ) {
+      return null;
+    }
+
+    ImageData imageData = page.rasterize( renderer, 1.0, bounds.x, bounds.y, bounds.width, bounds.height );
+    page.discard();
+    return new ComponentRegion( new ArrayList<>( componentAreas.keySet() ), bounds, areas, imageData );
+  }
+
+  /**
+   * Abandon the renders of the groups which aren't done yet
+   */
+  public void cancel() {
+    for ( CompletableFuture<ComponentRegion> region : regions ) {
+      region.cancel( true );
+    }
+  }
+
+  /**
+   * Gets presentationName
+   *
+   * @return value of presentationName
+   */
+  public String getPresentationName() {
+    return presentationName;
+  }
+
+  /**
+   * Gets pageWidth
+   *
+   * @return value of pageWidth
+   */
+  public int getPageWidth() {
+    return pageWidth;
+  }
+
+  /**
+   * Gets pageHeight
+   *
+   * @return value of pageHeight
+   */
+  public int getPageHeight() {
+    return pageHeight;
+  }
+
+  /**
+   * Gets regions
+   *
+   * @return The futures for the regions of the groups, in the order the components appear on the page
+   */
+  public List<CompletableFuture<ComponentRegion>> getRegions() {
+    return regions;
+  }
+}
@@ -0,0 +1,107 @@
+package org.lean.viewer.swt;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the total size of the page rasters in memory under a maximum.
+ * Pages are tracked in least recently used order: when the budget is exceeded the rasters of the pages which were
+ * used longest ago are released.
+ */
+public class RasterBudget {
+
+  public static final long DEFAULT_MAX_BYTES = 128L * 1024 * 1024;
+
+  private final Map<RenderedPage, Long> pages;
+  private long maxBytes;
+  private long usedBytes;
+
+  public RasterBudget() {
+    this( DEFAULT_MAX_BYTES );
+  }
+
+  public RasterBudget( long maxBytes ) {
+    this.maxBytes = maxBytes;
+    this.pages = new LinkedHashMap<>( 16, 0.75f, true );
+  }
+
+  /**
+   * Register the use of a (materialized) page and release the rasters of other pages if the budget is exceeded.
+   * The page itself is never released by this call.
+   *
+   * @param page The page which was used
+   */
+  public synchronized void touch( RenderedPage page ) {
+    Long previous = pages.remove( page );
+    if ( previous != null ) {
+      usedBytes -= previous;
+    }
+    long bytes = page.getRasterBytes();
+    if ( bytes == 0 ) {
+      return;
+    }
+    pages.put( page, bytes );
+    usedBytes += bytes;
+    evict( page );
+  }
+
+  /**
+   * Stop tracking a page and release its raster.
+   *
+   * @param page The page to forget
+   */
+  public synchronized void release( RenderedPage page ) {
+    Long bytes = pages.remove( page );
+    if ( bytes != null ) {
+      usedBytes -= bytes;
+    }
+    page.releaseRaster();
+  }
+
+  private void evict( RenderedPage keep ) {
+    Iterator<Map.Entry<RenderedPage, Long>> iterator = pages.entrySet().iterator();
+    while ( usedBytes > maxBytes && iterator.hasNext() ) {
+      Map.Entry<RenderedPage, Long> entry = iterator.next();
+      if ( entry.getKey() == keep ) {
+        continue;
+      }
+      entry.getKey().releaseRaster();
+      usedBytes -= entry.getValue();
+      iterator.remove();
+    }
+  }
+
+  /**
+   * Gets maxBytes
+   *
+   * @return value of maxBytes
+   */
+  public synchronized long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * @param maxBytes The maximum number of bytes of page rasters to keep in memory
+   */
+  public synchronized void setMaxBytes( long maxBytes ) {
+    this.maxBytes = maxBytes;
+    evict( null );
+  }
+
+  /**
+   * Gets usedBytes
+   *
+   * @return value of usedBytes
+   */
+  public synchronized long getUsedBytes() {
+    return usedBytes;
+  }
+
+  /**
+   * @return The number of pages with a raster in memory
+   */
+  public synchronized int getPageCount() {
+    return pages.size();
+  }
+}
@@ -0,0 +1,57 @@
+package org.lean.viewer.swt;
+
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.Rectangle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares two rasters of a page block by block to find out which parts of the page changed.
+ */
+public class RasterDiff {
+
+  private RasterDiff() {
+  }
+
+  /**
+   * Compare two rasters of the same size and format.
+   *
+   * @param before    The previous raster
+   * @param after     The new raster
+   * @param blockSize The size of the blocks to compare
+   * @return The changed blocks in page coordinates or null if the rasters can't be compared
+   */
+  public static PageDamage compare( ImageData before, ImageData after, int blockSize ) {
+    if ( before == null || after == null || before.width != after.width || before.height != after.height || before.depth != after.depth
+      || before.bytesPerLine != after.bytesPerLine ) {
+      return null;
+    }
+    int bytesPerPixel = Math.max( 1, before.depth / 8 );
+    List<Rectangle> changed = new ArrayList<>();
+    for ( int y = 0; y < before.height; y += blockSize ) {
+      int height = Math.min( blockSize, before.height - y );
+      for ( int x = 0; x < before.width; x += blockSize ) {
+        int width = Math.min( blockSize, before.width - x );
+        if ( !sameBlock( before, after, x * bytesPerPixel, y, width * bytesPerPixel, height ) ) {
+          changed.add( new Rectangle( x, y, width, height ) );
+        }
+      }
+    }
+    return PageDamage.of( changed );
+  }
+
+  private static boolean sameBlock( ImageData before, ImageData after, int offset, int y, int length, int height ) {
+    byte[] a = before.data;
+    byte[] b = after.data;
+    for ( int row = y; row < y + height; row++ ) {
+      int start = row * before.bytesPerLine + offset;
+      for ( int i = start; i < start + length; i++ ) {
+        if ( a[ i ] != b[ i ] ) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+}
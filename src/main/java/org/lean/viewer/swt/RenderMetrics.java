@@ -0,0 +1,204 @@
+package org.lean.viewer.swt;
+
+import org.apache.hop.core.logging.ILogChannel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timings of the render stages per presentation, sizes of the pages produced and hit rates of the caches.
+ * Metrics are disabled by default. While disabled, measuring a stage costs a single volatile read and nothing is kept.
+ * <p>
+ * Stages are measured like this:
+ * <pre>
+ *   long start = metrics.start();
+ *   ...
+ *   metrics.stop( presentationName, RenderStage.LAYOUT, start );
+ * </pre>
+ */
+public class RenderMetrics {
+
+  private volatile boolean enabled;
+  private volatile ILogChannel log;
+  private final int windowSize;
+  private final Map<String, PresentationMetrics> presentations;
+  private final List<IRenderMetricsListener> listeners;
+
+  private final AtomicLong presentationCacheHits;
+  private final AtomicLong presentationCacheMisses;
+  private final AtomicLong tileCacheHits;
+  private final AtomicLong tileCacheMisses;
+
+  public RenderMetrics() {
+    this( RollingTimings.DEFAULT_WINDOW_SIZE );
+  }
+
+  public RenderMetrics( int windowSize ) {
+    this.windowSize = windowSize;
+    this.enabled = false;
+    this.presentations = new ConcurrentHashMap<>();
+    this.listeners = new CopyOnWriteArrayList<>();
+    this.presentationCacheHits = new AtomicLong();
+    this.presentationCacheMisses = new AtomicLong();
+    this.tileCacheHits = new AtomicLong();
+    this.tileCacheMisses = new AtomicLong();
+  }
+
+  /**
+   * Start measuring a stage
+   *
+   * @return The start time to pass to {@link #stop(String, RenderStage, long)}, 0 when disabled
+   */
+  public long start() {
+    return enabled ? System.nanoTime() : 0L;
+  }
+
+  /**
+   * Stop measuring a stage and record its duration
+   *
+   * @param presentationName The name of the presentation
+   * @param stage            The stage that finished
+   * @param start            The start time returned by {@link #start()}
+   */
+  public void stop( String presentationName, RenderStage stage, long start ) {
+    if ( start == 0L || !enabled || presentationName == null ) {
+      return;
+    }
+    long durationNanos = System.nanoTime() - start;
+    getPresentationMetrics( presentationName ).getTimings( stage ).add( durationNanos );
+
+    ILogChannel logChannel = log;
+    if ( logChannel != null && logChannel.isDetailed() ) {
+      logChannel.logDetailed( "Presentation '" + presentationName + "' " + stage + " took " + TimeUnit.NANOSECONDS.toMillis( durationNanos ) + "ms" );
+    }
+    for ( IRenderMetricsListener listener : listeners ) {
+      listener.stageMeasured( presentationName, stage, durationNanos );
+    }
+  }
+
+  /**
+   * Record the size of a page which was produced
+   *
+   * @param presentationName The name of the presentation
+   * @param svgBytes         The estimated size of the SVG document of the page
+   * @param drawnItemCount   The number of items drawn on the page
+   */
+  public void recordPage( String presentationName, long svgBytes, int drawnItemCount ) {
+    if ( enabled ) {
+      getPresentationMetrics( presentationName ).setPageSize( svgBytes, drawnItemCount );
+    }
+  }
+
+  /**
+   * Record a lookup in the cache of rendered presentations
+   *
+   * @param hit true if the presentation was found in the cache
+   */
+  public void recordPresentationCacheLookup( boolean hit ) {
+    if ( enabled ) {
+      ( hit ? presentationCacheHits : presentationCacheMisses ).incrementAndGet();
+    }
+  }
+
+  /**
+   * Record a lookup in the cache of rasterized tiles
+   *
+   * @param hit true if the tile was found in the cache
+   */
+  public void recordTileCacheLookup( boolean hit ) {
+    if ( enabled ) {
+      ( hit ? tileCacheHits : tileCacheMisses ).incrementAndGet();
+    }
+  }
+
+  /**
+   * Get the metrics of a presentation, created when nothing was measured for it yet
+   *
+   * @param presentationName The name of the presentation
+   * @return The metrics of the presentation
+   */
+  public PresentationMetrics getPresentationMetrics( String presentationName ) {
+    return presentations.computeIfAbsent( presentationName, name -> new PresentationMetrics( name, windowSize ) );
+  }
+
+  /**
+   * @return The names of the presentations which have been measured
+   */
+  public List<String> getPresentationNames() {
+    return new ArrayList<>( presentations.keySet() );
+  }
+
+  /**
+   * @return The fraction of presentation cache lookups which were hits, 0 if there were none
+   */
+  public double getPresentationCacheHitRate() {
+    return hitRate( presentationCacheHits.get(), presentationCacheMisses.get() );
+  }
+
+  /**
+   * @return The fraction of tile cache lookups which were hits, 0 if there were none
+   */
+  public double getTileCacheHitRate() {
+    return hitRate( tileCacheHits.get(), tileCacheMisses.get() );
+  }
+
+  private static double hitRate( long hits, long misses ) {
+    return hits + misses == 0 ? 0.0 : (double) hits / ( hits + misses );
+  }
+
+  /**
+   * Forget everything measured so far
+   */
+  public void reset() {
+    presentations.clear();
+    presentationCacheHits.set( 0L );
+    presentationCacheMisses.set( 0L );
+    tileCacheHits.set( 0L );
+    tileCacheMisses.set( 0L );
+  }
+
+  public void addListener( IRenderMetricsListener listener ) {
+    listeners.add( listener );
+  }
+
+  public void removeListener( IRenderMetricsListener listener ) {
+    listeners.remove( listener );
+  }
+
+  /**
+   * Gets enabled
+   *
+   * @return value of enabled
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * @param enabled The enabled to set
+   */
+  public void setEnabled( boolean enabled ) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Gets log
+   *
+   * @return value of log
+   */
+  public ILogChannel getLog() {
+    return log;
+  }
+
+  /**
+   * @param log The log channel to log the timings of the stages on at the detailed level, null to not log them
+   */
+  public void setLog( ILogChannel log ) {
+    this.log = log;
+  }
+}
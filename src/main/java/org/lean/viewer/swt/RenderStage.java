@@ -0,0 +1,46 @@
+package org.lean.viewer.swt;
+
+/**
+ * The stages between a presentation name and pixels on the screen which are measured by {@link RenderMetrics}
+ */
+public enum RenderStage {
+  /**
+   * Loading the presentation from the metadata provider
+   */
+  LOAD,
+
+  /**
+   * Calculating the layout of the presentation, including the retrieval of its data
+   */
+  LAYOUT,
+
+  /**
+   * Rendering the laid out presentation
+   */
+  RENDER,
+
+  /**
+   * Converting a rendered page to an SVG document
+   */
+  SVG,
+
+  /**
+   * Building the Batik graphics tree of the SVG document of a page
+   */
+  GRAPHICS_TREE,
+
+  /**
+   * Rasterizing a complete page
+   */
+  RASTERIZE,
+
+  /**
+   * Rasterizing a tile of a zoomed page
+   */
+  TILE,
+
+  /**
+   * Painting the canvas of the viewer
+   */
+  PAINT,
+}
@@ -0,0 +1,401 @@
+package org.lean.viewer.swt;
+
+import org.apache.batik.gvt.GraphicsNode;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.Rectangle;
+import org.lean.core.exception.LeanException;
+import org.lean.presentation.LeanPresentation;
+import org.lean.presentation.layout.LeanRenderPage;
+import org.lean.presentation.page.LeanPage;
+import org.w3c.dom.Node;
+import org.w3c.dom.svg.SVGDocument;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A single page of a rendered presentation.
+ * The SVG document and the raster of the page are only created when the page is materialized, typically when it
+ * becomes visible or is prefetched. The raster can be released again to stay within a memory budget: it's simply
+ * created again from the SVG document when needed.
+ * <p>
+ * Rasterizing happens without holding a lock on the page: the results are published through volatile fields so the
+ * display thread can always look at the page without waiting for a background render. Concurrent materializations of
+ * the same page share a single in-flight rasterization.
+ */
+public class RenderedPage {
+
+  /**
+   * A rough estimate of the memory used by a single node of an SVG document
+   */
+  public static final long ESTIMATED_BYTES_PER_SVG_NODE = 256L;
+
+  private final LeanPresentation presentation;
+  private final int pageIndex;
+  private final LeanRenderPage renderPage;
+
+  // Only guards the one-off creation of the SVG document and the graphics tree, never a rasterization
+  //
+  private final Object svgLock = new Object();
+
+  // The rasterization of this page which is currently running, if any
+  //
+  private final AtomicReference<CompletableFuture<ImageData>> materializing = new AtomicReference<>();
+
+  private volatile SVGDocument svgDocument;
+  private volatile int svgNodeCount;
+  private volatile GraphicsNode graphicsNode;
+  private volatile ImageData imageData;
+  private volatile DrawnItemIndex drawnItemIndex;
+  private volatile InteractionMap interactionMap;
+
+  // The page this page was derived from by rasterizing only the damaged areas, if any
+  //
+  private volatile WeakReference<RenderedPage> basePage;
+  private volatile PageDamage damage;
+
+  public RenderedPage( LeanPresentation presentation, int pageIndex, LeanRenderPage renderPage ) {
+    this.presentation = presentation;
+    this.pageIndex = pageIndex;
+    this.renderPage = renderPage;
+  }
+
+  /**
+   * Make sure the SVG document and the raster of the page are available.
+   *
+   * @param renderer The renderer to create the SVG document with
+   * @return The raster of the page
+   * @throws LeanException In case the page can't be converted to SVG
+   * @throws IOException   In case the SVG of the page can't be read
+   */
+  public ImageData materialize( PresentationRenderer renderer ) throws LeanException, IOException {
+    ImageData raster = publish( () -> {
+      LeanPage page = renderPage.getPage();
+      GraphicsNode node = getGraphicsNode( renderer );
+      RenderMetrics metrics = renderer.getMetrics();
+      long start = metrics.start();
+      ImageData full = SvgRasterizer.toImageData( SvgRasterizer.rasterize( node, page.getWidth(), page.getHeight() ) );
+      metrics.stop( presentation.getName(), RenderStage.RASTERIZE, start );
+      return full;
+    } );
+    getDrawnItemIndex();
+    getInteractionMap();
+    return raster;
+  }
+
+  /**
+   * Materialize this page by copying the raster of an earlier render of the same page and rasterizing only the areas
+   * which changed.
+   *
+   * @param renderer The renderer to create the SVG document with
+   * @param base     The earlier render of the page
+   * @param damage   The areas which changed
+   * @return true if the page was materialized, false if the earlier render has no raster anymore
+   * @throws LeanException In case the page can't be converted to SVG
+   * @throws IOException   In case the SVG of the page can't be read
+   */
+  public boolean materialize( PresentationRenderer renderer, RenderedPage base, PageDamage damage ) throws LeanException, IOException {
+    ImageData raster = publish( () -> {
+      ImageData baseImageData = base.getImageData();
+      if ( baseImageData == null ) {
+        return null;
+      }
+      GraphicsNode node = getGraphicsNode( renderer );
+      RenderMetrics metrics = renderer.getMetrics();
+      long start = metrics.start();
+      ImageData patched = (ImageData) baseImageData.clone();
+      int bytesPerPixel = patched.depth / 8;
+      for ( Rectangle area : damage.getAreas() ) {
+        ImageData patch = SvgRasterizer.toImageData( SvgRasterizer.rasterize( node, area.width, area.height, 1.0, area.x, area.y ) );
+        for ( int row = 0; row < area.height; row++ ) {
+          System.arraycopy( patch.data, row * patch.bytesPerLine, patched.data, ( area.y + row ) * patched.bytesPerLine + area.x * bytesPerPixel,
+            area.width * bytesPerPixel );
+        }
+      }
+      metrics.stop( presentation.getName(), RenderStage.RASTERIZE, start );
+
+      this.basePage = new WeakReference<>( base );
+      this.damage = damage;
+      return patched;
+    } );
+    if ( raster == null ) {
+      return false;
+    }
+    getDrawnItemIndex();
+    getInteractionMap();
+    return true;
+  }
+
+  /**
+   * Run a rasterization of this page unless the page is already materialized. If another thread is rasterizing the
+   * page already, its result is used instead of rasterizing the page a second time.
+   *
+   * @param rasterization Creates the raster of the page, returns null if it can't
+   * @return The raster of the page or null if the rasterization couldn't create one
+   * @throws LeanException In case the page can't be converted to SVG
+   * @throws IOException   In case the SVG of the page can't be read
+   */
+  private ImageData publish( Rasterization rasterization ) throws LeanException, IOException {
+    while ( true ) {
+      ImageData current = imageData;
+      if ( current != null ) {
+        return current;
+      }
+      CompletableFuture<ImageData> running = materializing.get();
+      if ( running != null ) {
+        ImageData shared = await( running );
+        if ( shared != null ) {
+          return shared;
+        }
+        // The other rasterization couldn't create a raster, try ours
+        //
+        continue;
+      }
+      CompletableFuture<ImageData> mine = new CompletableFuture<>();
+      if ( !materializing.compareAndSet( null, mine ) ) {
+        continue;
+      }
+      try {
+        ImageData raster = rasterization.rasterize();
+        if ( raster != null ) {
+          imageData = raster;
+        }
+        mine.complete( raster );
+        return raster;
+      } catch ( Throwable e ) {
+        mine.completeExceptionally( e );
+        throw e;
+      } finally {
+        materializing.compareAndSet( mine, null );
+      }
+    }
+  }
+
+  private static ImageData await( CompletableFuture<ImageData> running ) throws LeanException, IOException {
+    try {
+      return running.join();
+    } catch ( CompletionException e ) {
+      Throwable cause = e.getCause();
+      if ( cause instanceof LeanException ) {
+        throw (LeanException) cause;
+      }
+      if ( cause instanceof IOException ) {
+        throw (IOException) cause;
+      }
+      if ( cause instanceof RuntimeException ) {
+        throw (RuntimeException) cause;
+      }
+      if ( cause instanceof Error ) {
+        throw (Error) cause;
+      }
+      throw e;
+    }
+  }
+
+  @FunctionalInterface
+  private interface Rasterization {
+    ImageData rasterize() throws LeanException, IOException;
+  }
+
+  /**
+   * Rasterize an area of this page at a certain scale.
+   *
+   * @param renderer The renderer to create the SVG document with
+   * @param scale    The scale to rasterize the page at
+   * @param x        The horizontal offset of the area in scaled pixels
+   * @param y        The vertical offset of the area in scaled pixels
+   * @param width    The width of the area in scaled pixels
+   * @param height   The height of the area in scaled pixels
+   * @return The raster of the area
+   * @throws LeanException In case the page can't be converted to SVG
+   * @throws IOException   In case the SVG of the page can't be read
+   */
+  public ImageData rasterize( PresentationRenderer renderer, double scale, int x, int y, int width, int height ) throws LeanException, IOException {
+    GraphicsNode node = getGraphicsNode( renderer );
+    RenderMetrics metrics = renderer.getMetrics();
+    long start = metrics.start();
+    ImageData tile = SvgRasterizer.toImageData( SvgRasterizer.rasterize( node, width, height, scale, x, y ) );
+    metrics.stop( presentation.getName(), RenderStage.TILE, start );
+    return tile;
+  }
+
+  private GraphicsNode getGraphicsNode( PresentationRenderer renderer ) throws LeanException, IOException {
+    GraphicsNode node = graphicsNode;
+    if ( node != null ) {
+      return node;
+    }
+    synchronized ( svgLock ) {
+      RenderMetrics metrics = renderer.getMetrics();
+      SVGDocument document = svgDocument;
+      if ( document == null ) {
+        long start = metrics.start();
+        document = renderer.createSvgDocument( renderPage );
+        svgNodeCount = countNodes( document );
+        svgDocument = document;
+        metrics.stop( presentation.getName(), RenderStage.SVG, start );
+        metrics.recordPage( presentation.getName(), svgNodeCount * ESTIMATED_BYTES_PER_SVG_NODE, renderPage.getDrawnItems().size() );
+      }
+      node = graphicsNode;
+      if ( node == null ) {
+        long start = metrics.start();
+        node = SvgRasterizer.buildGraphicsNode( document );
+        graphicsNode = node;
+        metrics.stop( presentation.getName(), RenderStage.GRAPHICS_TREE, start );
+      }
+      return node;
+    }
+  }
+
+  /**
+   * Get the index to look up the drawn items of this page with.
+   * It's built once, usually while materializing the page in the background. Two threads building it at the same
+   * time simply build the same index twice.
+   *
+   * @return The drawn item index of the page
+   */
+  public DrawnItemIndex getDrawnItemIndex() {
+    DrawnItemIndex index = drawnItemIndex;
+    if ( index == null ) {
+      index = new DrawnItemIndex( renderPage );
+      drawnItemIndex = index;
+    }
+    return index;
+  }
+
+  /**
+   * Get the interactions of the drawn items of this page.
+   * They're resolved once, usually while materializing the page in the background.
+   *
+   * @return The interaction map of the page
+   * @throws LeanException In case the interactions can't be resolved
+   */
+  public InteractionMap getInteractionMap() throws LeanException {
+    InteractionMap map = interactionMap;
+    if ( map == null ) {
+      map = new InteractionMap( presentation, renderPage.getDrawnItems() );
+      interactionMap = map;
+    }
+    return map;
+  }
+
+  /**
+   * Release the raster and graphics tree of this page. The SVG document is kept since the render page can only produce
+   * it once.
+   *
+   * @return The number of bytes released
+   */
+  public long releaseRaster() {
+    long released = getRasterBytes();
+    imageData = null;
+    graphicsNode = null;
+    return released;
+  }
+
+  /**
+   * Drop everything this page holds on to, including the SVG document, after a one-off use like an export.
+   * Since the render page can only produce its SVG once, the page can't be materialized anymore afterwards.
+   */
+  public void discard() {
+    imageData = null;
+    synchronized ( svgLock ) {
+      graphicsNode = null;
+      svgDocument = null;
+      svgNodeCount = 0;
+    }
+  }
+
+  /**
+   * @return The approximate number of bytes used by the raster of this page, 0 if it's not materialized
+   */
+  public long getRasterBytes() {
+    ImageData raster = imageData;
+    return raster == null ? 0L : raster.data.length;
+  }
+
+  /**
+   * @return The approximate number of bytes used by the raster and the SVG document of this page
+   */
+  public long getEstimatedBytes() {
+    return getRasterBytes() + svgNodeCount * ESTIMATED_BYTES_PER_SVG_NODE;
+  }
+
+  private static int countNodes( Node node ) {
+    int count = 1;
+    for ( Node child = node.getFirstChild(); child != null; child = child.getNextSibling() ) {
+      count += countNodes( child );
+    }
+    return count;
+  }
+
+  /**
+   * @return The earlier render this page was derived from or null if it was rasterized completely or is gone
+   */
+  public RenderedPage getBasePage() {
+    WeakReference<RenderedPage> reference = basePage;
+    return reference == null ? null : reference.get();
+  }
+
+  /**
+   * Gets damage
+   *
+   * @return The areas which differ from the base page or null if the page wasn't derived from another one
+   */
+  public PageDamage getDamage() {
+    return damage;
+  }
+
+  /**
+   * @return true if the raster of the page is available
+   */
+  public boolean isMaterialized() {
+    return imageData != null;
+  }
+
+  /**
+   * Gets presentation
+   *
+   * @return value of presentation
+   */
+  public LeanPresentation getPresentation() {
+    return presentation;
+  }
+
+  /**
+   * Gets pageIndex
+   *
+   * @return value of pageIndex
+   */
+  public int getPageIndex() {
+    return pageIndex;
+  }
+
+  /**
+   * Gets renderPage
+   *
+   * @return value of renderPage
+   */
+  public LeanRenderPage getRenderPage() {
+    return renderPage;
+  }
+
+  /**
+   * Gets svgDocument
+   *
+   * @return value of svgDocument or null if the page wasn't materialized yet
+   */
+  public SVGDocument getSvgDocument() {
+    return svgDocument;
+  }
+
+  /**
+   * Gets imageData
+   *
+   * @return value of imageData or null if the page isn't materialized
+   */
+  public ImageData getImageData() {
+    return imageData;
+  }
+}
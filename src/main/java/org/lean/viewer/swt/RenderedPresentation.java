@@ -0,0 +1,101 @@
+package org.lean.viewer.swt;
+
+import org.lean.presentation.LeanPresentation;
+import org.lean.presentation.layout.LeanLayoutResults;
+import org.lean.presentation.variable.LeanParameter;
+
+import java.util.List;
+
+/**
+ * The outcome of loading, laying out and rendering a presentation.
+ * Instances are created off the display thread by the {@link PresentationRenderer} and handed to the viewer when done.
+ * The pages are materialized (converted to SVG and rasterized) lazily. They don't hold any SWT resources.
+ */
+public class RenderedPresentation {
+
+  private final String presentationName;
+  private final List<LeanParameter> parameters;
+  private final LeanPresentation presentation;
+  private final LeanLayoutResults results;
+  private final List<RenderedPage> pages;
+
+  public RenderedPresentation( String presentationName, List<LeanParameter> parameters, LeanPresentation presentation, LeanLayoutResults results,
+                               List<RenderedPage> pages ) {
+    this.presentationName = presentationName;
+    this.parameters = parameters;
+    this.presentation = presentation;
+    this.results = results;
+    this.pages = pages;
+  }
+
+  /**
+   * Gets presentationName
+   *
+   * @return value of presentationName
+   */
+  public String getPresentationName() {
+    return presentationName;
+  }
+
+  /**
+   * Gets parameters
+   *
+   * @return value of parameters
+   */
+  public List<LeanParameter> getParameters() {
+    return parameters;
+  }
+
+  /**
+   * Gets presentation
+   *
+   * @return value of presentation
+   */
+  public LeanPresentation getPresentation() {
+    return presentation;
+  }
+
+  /**
+   * Gets results
+   *
+   * @return value of results
+   */
+  public LeanLayoutResults getResults() {
+    return results;
+  }
+
+  /**
+   * Gets pages
+   *
+   * @return value of pages
+   */
+  public List<RenderedPage> getPages() {
+    return pages;
+  }
+
+  /**
+   * @param pageIndex The index of the page, starting at 0
+   * @return The page with the given index
+   */
+  public RenderedPage getPage( int pageIndex ) {
+    return pages.get( pageIndex );
+  }
+
+  /**
+   * @return The approximate memory used by the materialized pages of the presentation
+   */
+  public long getEstimatedBytes() {
+    long bytes = 0L;
+    for ( RenderedPage page : pages ) {
+      bytes += page.getEstimatedBytes();
+    }
+    return bytes;
+  }
+
+  /**
+   * @return The number of pages of the presentation
+   */
+  public int getPageCount() {
+    return pages.size();
+  }
+}
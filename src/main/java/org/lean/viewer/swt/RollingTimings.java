@@ -0,0 +1,77 @@
+package org.lean.viewer.swt;
+
+import java.util.Arrays;
+
+/**
+ * The last couple of durations of something that's measured repeatedly, to calculate percentiles over a rolling window.
+ */
+public class RollingTimings {
+
+  public static final int DEFAULT_WINDOW_SIZE = 100;
+
+  private final long[] window;
+  private int next;
+  private int size;
+  private long count;
+  private long last;
+
+  public RollingTimings() {
+    this( DEFAULT_WINDOW_SIZE );
+  }
+
+  public RollingTimings( int windowSize ) {
+    this.window = new long[ Math.max( 1, windowSize ) ];
+  }
+
+  /**
+   * Add a duration to the window, replacing the oldest one when the window is full
+   *
+   * @param durationNanos The duration in nanoseconds
+   */
+  public synchronized void add( long durationNanos ) {
+    window[ next ] = durationNanos;
+    next = ( next + 1 ) % window.length;
+    size = Math.min( size + 1, window.length );
+    count++;
+    last = durationNanos;
+  }
+
+  /**
+   * Calculate a percentile of the durations in the window with the nearest rank method
+   *
+   * @param percentile The percentile between 0 and 100
+   * @return The duration at the percentile in nanoseconds or 0 if nothing was measured yet
+   */
+  public synchronized long getPercentile( double percentile ) {
+    if ( size == 0 ) {
+      return 0L;
+    }
+    long[] sorted = Arrays.copyOf( window, size );
+    Arrays.sort( sorted );
+    int rank = (int) Math.ceil( percentile / 100.0 * size );
+    return sorted[ Math.min( size, Math.max( 1, rank ) ) - 1 ];
+  }
+
+  /**
+   * Gets last
+   *
+   * @return value of last
+   */
+  public synchronized long getLast() {
+    return last;
+  }
+
+  /**
+   * @return The total number of durations added, also the ones which dropped out of the window
+   */
+  public synchronized long getCount() {
+    return count;
+  }
+
+  /**
+   * @return The number of durations in the window
+   */
+  public synchronized int getSize() {
+    return size;
+  }
+}
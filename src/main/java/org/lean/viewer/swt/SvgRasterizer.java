@@ -0,0 +1,106 @@
+package org.lean.viewer.swt;
+
+import org.apache.batik.bridge.BridgeContext;
+import org.apache.batik.bridge.DocumentLoader;
+import org.apache.batik.bridge.GVTBuilder;
+import org.apache.batik.bridge.UserAgent;
+import org.apache.batik.bridge.UserAgentAdapter;
+import org.apache.batik.gvt.GraphicsNode;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.PaletteData;
+import org.w3c.dom.svg.SVGDocument;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Rasterizes SVG documents without touching any SWT device.
+ * Everything in here can safely run outside of the SWT display thread: the result is plain {@link ImageData}
+ * which only needs to be turned into an {@link org.eclipse.swt.graphics.Image} on the display thread.
+ */
+public class SvgRasterizer {
+
+  private SvgRasterizer() {
+  }
+
+  /**
+   * Build the Batik graphics tree of an SVG document so that it can be painted (repeatedly) onto a Graphics2D.
+   *
+   * @param document The SVG document to build
+   * @return The root of the graphics tree
+   */
+  public static GraphicsNode buildGraphicsNode( SVGDocument document ) {
+    UserAgent userAgent = new UserAgentAdapter();
+    DocumentLoader documentLoader = new DocumentLoader( userAgent );
+    BridgeContext bridgeContext = new BridgeContext( userAgent, documentLoader );
+    bridgeContext.setDynamicState( BridgeContext.STATIC );
+    return new GVTBuilder().build( bridgeContext, document );
+  }
+
+  /**
+   * Paint a graphics tree onto a new image with a white background.
+   *
+   * @param graphicsNode The graphics tree to paint
+   * @param width        The width of the image in pixels
+   * @param height       The height of the image in pixels
+   * @return The rasterized image
+   */
+  public static BufferedImage rasterize( GraphicsNode graphicsNode, int width, int height ) {
+    return rasterize( graphicsNode, width, height, 1.0, 0, 0 );
+  }
+
+  /**
+   * Paint an area of a scaled graphics tree onto a new image with a white background.
+   *
+   * @param graphicsNode The graphics tree to paint
+   * @param width        The width of the image in pixels
+   * @param height       The height of the image in pixels
+   * @param scale        The scale to paint the graphics tree at
+   * @param x            The horizontal offset of the area in scaled pixels
+   * @param y            The vertical offset of the area in scaled pixels
+   * @return The rasterized area
+   */
+  public static BufferedImage rasterize( GraphicsNode graphicsNode, int width, int height, double scale, int x, int y ) {
+    BufferedImage image = new BufferedImage( Math.max( 1, width ), Math.max( 1, height ), BufferedImage.TYPE_INT_RGB );
+    Graphics2D graphics = image.createGraphics();
+    try {
+      graphics.setRenderingHint( RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON );
+      graphics.setRenderingHint( RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON );
+      graphics.setRenderingHint( RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY );
+      graphics.setColor( Color.WHITE );
+      graphics.fillRect( 0, 0, image.getWidth(), image.getHeight() );
+      graphics.translate( -x, -y );
+      graphics.scale( scale, scale );
+
+      // A graphics tree keeps state while painting, don't paint the same tree from 2 threads at once
+      //
+      synchronized ( graphicsNode ) {
+        graphicsNode.paint( graphics );
+      }
+    } finally {
+      graphics.dispose();
+    }
+    return image;
+  }
+
+  /**
+   * Convert an RGB image to SWT image data.
+   *
+   * @param image The image to convert, created by one of the rasterize methods
+   * @return The SWT image data of the image
+   */
+  public static ImageData toImageData( BufferedImage image ) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[] pixels = ( (DataBufferInt) image.getRaster().getDataBuffer() ).getData();
+
+    ImageData imageData = new ImageData( width, height, 32, new PaletteData( 0xFF0000, 0x00FF00, 0x0000FF ) );
+    for ( int y = 0; y < height; y++ ) {
+      imageData.setPixels( 0, y, width, pixels, y * width );
+    }
+    return imageData;
+  }
+}
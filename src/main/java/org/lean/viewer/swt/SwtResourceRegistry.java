@@ -0,0 +1,236 @@
+package org.lean.viewer.swt;
+
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.FontData;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageDataProvider;
+import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.widgets.Display;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Owns the native graphics resources used by the viewers of a display: colors and fonts are created once and shared,
+ * images are tracked until they're disposed.
+ * Viewers acquire the registry of their display and release it when they're disposed. The resources are disposed when
+ * the last viewer releases the registry or when the display is disposed.
+ * The live counts make it possible to verify that the number of handles stays flat over time.
+ * Like all SWT resources, this must only be used on the display thread.
+ */
+public class SwtResourceRegistry {
+
+  private static final Map<Display, SwtResourceRegistry> registries = new HashMap<>();
+
+  // The displays with a dispose hook: a display keeps its hooks until it's disposed so it only gets one
+  //
+  private static final Set<Display> hookedDisplays = Collections.newSetFromMap( new IdentityHashMap<>() );
+
+  private final Display display;
+  private final Map<RGB, Color> colors;
+  private final Map<FontData, Font> fonts;
+  private final Set<Image> images;
+  private int references;
+  private boolean disposed;
+
+  private SwtResourceRegistry( Display display ) {
+    this.display = display;
+    this.colors = new HashMap<>();
+    this.fonts = new HashMap<>();
+    this.images = Collections.newSetFromMap( new IdentityHashMap<>() );
+  }
+
+  /**
+   * Get the registry of a display, creating it if needed. Every call must be matched with a call to {@link #release()}.
+   *
+   * @param display The display to get the resources for
+   * @return The registry of the display
+   */
+  public static SwtResourceRegistry acquire( Display display ) {
+    synchronized ( registries ) {
+      SwtResourceRegistry registry = registries.get( display );
+      if ( registry == null ) {
+        registry = new SwtResourceRegistry( display );
+        registries.put( display, registry );
+        if ( hookedDisplays.add( display ) ) {
+          display.disposeExec( () -> displayDisposed( display ) );
+        }
+      }
+      registry.references++;
+      return registry;
+    }
+  }
+
+  /**
+   * Stop using the registry. The resources are disposed when nobody uses the registry anymore.
+   */
+  public void release() {
+    synchronized ( registries ) {
+      if ( --references <= 0 ) {
+        dispose();
+      }
+    }
+  }
+
+  private static void displayDisposed( Display display ) {
+    SwtResourceRegistry registry;
+    synchronized ( registries ) {
+      hookedDisplays.remove( display );
+      registry = registries.get( display );
+    }
+    if ( registry != null ) {
+      registry.dispose();
+    }
+  }
+
+  private void dispose() {
+    synchronized ( registries ) {
+      if ( disposed ) {
+        return;
+      }
+      disposed = true;
+      registries.remove( display );
+    }
+    for ( Color color : colors.values() ) {
+      color.dispose();
+    }
+    colors.clear();
+    for ( Font font : fonts.values() ) {
+      font.dispose();
+    }
+    fonts.clear();
+    for ( Image image : images ) {
+      if ( !image.isDisposed() ) {
+        image.dispose();
+      }
+    }
+    images.clear();
+  }
+
+  /**
+   * Get a shared color, don't dispose it.
+   *
+   * @return The color with the given red, green and blue components
+   */
+  public Color getColor( int red, int green, int blue ) {
+    RGB rgb = new RGB( red, green, blue );
+    Color color = colors.get( rgb );
+    if ( color == null ) {
+      color = new Color( display, rgb );
+      colors.put( rgb, color );
+    }
+    return color;
+  }
+
+  /**
+   * Get a shared font, don't dispose it.
+   *
+   * @param name   The name of the font
+   * @param height The height in points
+   * @param style  A combination of SWT.NORMAL, SWT.BOLD and SWT.ITALIC
+   * @return The font
+   */
+  public Font getFont( String name, int height, int style ) {
+    FontData fontData = new FontData( name, height, style );
+    Font font = fonts.get( fontData );
+    if ( font == null ) {
+      font = new Font( display, fontData );
+      fonts.put( fontData, font );
+    }
+    return font;
+  }
+
+  /**
+   * Create a tracked image. Dispose it with {@link #disposeImage(Image)}.
+   *
+   * @param imageData The image data to create the image from
+   * @return The new image
+   */
+  public Image createImage( ImageData imageData ) {
+    Image image = new Image( display, imageData );
+    images.add( image );
+    return image;
+  }
+
+  /**
+   * Create a tracked image from a raster made for a monitor zoom level, so that it's drawn sharp on a HiDPI monitor.
+   * The image is as large in points as the raster is in pixels at 100%. Dispose it with {@link #disposeImage(Image)}.
+   *
+   * @param imageData  The image data to create the image from
+   * @param deviceZoom The monitor zoom the image data was rasterized for, 100 for one pixel per point
+   * @return The new image
+   */
+  public Image createImage( ImageData imageData, int deviceZoom ) {
+    if ( deviceZoom == 100 ) {
+      return createImage( imageData );
+    }
+    Image image = new Image( display, (ImageDataProvider) zoom -> zoom == deviceZoom ? imageData
+      : imageData.scaledTo( Math.max( 1, imageData.width * zoom / deviceZoom ), Math.max( 1, imageData.height * zoom / deviceZoom ) ) );
+    images.add( image );
+    return image;
+  }
+
+  /**
+   * Dispose an image created with {@link #createImage(ImageData)}
+   *
+   * @param image The image to dispose, null is ignored
+   */
+  public void disposeImage( Image image ) {
+    if ( image == null ) {
+      return;
+    }
+    images.remove( image );
+    if ( !image.isDisposed() ) {
+      image.dispose();
+    }
+  }
+
+  /**
+   * @return The number of colors held
+   */
+  public int getColorCount() {
+    return colors.size();
+  }
+
+  /**
+   * @return The number of fonts held
+   */
+  public int getFontCount() {
+    return fonts.size();
+  }
+
+  /**
+   * @return The number of live images
+   */
+  public int getImageCount() {
+    return images.size();
+  }
+
+  /**
+   * @return The total number of native graphics resources held
+   */
+  public int getHandleCount() {
+    return colors.size() + fonts.size() + images.size();
+  }
+
+  /**
+   * Gets display
+   *
+   * @return value of display
+   */
+  public Display getDisplay() {
+    return display;
+  }
+
+  /**
+   * @return true if the resources were disposed
+   */
+  public boolean isDisposed() {
+    return disposed;
+  }
+}
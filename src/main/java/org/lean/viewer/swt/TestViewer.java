@@ -78,7 +78,15 @@ public class TestViewer {
     }
   }
 
-  private static void generateDashboard( IHopMetadataProvider metadataProvider, String dashboardName, List<String> presentationNames ) throws HopException {
+  /**
+   * Generate a dashboard with one label per presentation, each opening its presentation on a single click.
+   *
+   * @param metadataProvider  The metadata provider to save the dashboard in
+   * @param dashboardName     The name of the dashboard presentation
+   * @param presentationNames The names of the presentations to link to
+   * @throws HopException In case the dashboard can't be saved
+   */
+  public static void generateDashboard( IHopMetadataProvider metadataProvider, String dashboardName, List<String> presentationNames ) throws HopException {
     // Add a simple presentation to the metadata
     //
     IHopMetadataSerializer<LeanPresentation> serializer = metadataProvider.getSerializer( LeanPresentation.class );
@@ -139,7 +147,96 @@ public class TestViewer {
     serializer.save( presentation );
   }
 
-  private static void generateLabelPresentation( IHopMetadataProvider metadataProvider, String dashboardName, String presentationName ) throws HopException {
+  /**
+   * Generate a grid of small labels linking to the given presentations, one label per component.
+   * This is a scaled up version of the dashboard to measure pages with hundreds of drawn items.
+   *
+   * @param metadataProvider  The metadata provider to save the dashboard in
+   * @param dashboardName     The name of the dashboard presentation
+   * @param presentationNames The names of the presentations to link to, used round robin
+   * @param componentCount    The number of label components to put on the page
+   * @param columns           The number of labels next to each other
+   * @throws HopException In case the dashboard can't be saved
+   */
+  public static void generateGridDashboard( IHopMetadataProvider metadataProvider, String dashboardName, List<String> presentationNames, int componentCount,
+                                            int columns ) throws HopException {
+    generateGridDashboard( metadataProvider, dashboardName, presentationNames, componentCount, columns, 1 );
+  }
+
+  /**
+   * Generate a dashboard of several pages, each with a grid of small labels linking to the given presentations.
+   *
+   * @param metadataProvider  The metadata provider to save the dashboard in
+   * @param dashboardName     The name of the dashboard presentation
+   * @param presentationNames The names of the presentations to link to, used round robin
+   * @param componentCount    The number of label components to put on every page
+   * @param columns           The number of labels next to each other
+   * @param pageCount         The number of pages
+   * @throws HopException In case the dashboard can't be saved
+   */
+  public static void generateGridDashboard( IHopMetadataProvider metadataProvider, String dashboardName, List<String> presentationNames, int componentCount,
+                                            int columns, int pageCount ) throws HopException {
+    IHopMetadataSerializer<LeanPresentation> serializer = metadataProvider.getSerializer( LeanPresentation.class );
+
+    LeanPresentation presentation = new LeanPresentation();
+    presentation.setName( dashboardName );
+
+    LeanPage page = null;
+    for ( int i = 0; i < componentCount * pageCount; i++ ) {
+      if ( i % componentCount == 0 ) {
+        page = new LeanPage( presentation.getPages().size() + 1, 794, 1123, 25, 25, 25, 25 );
+        presentation.getPages().add( page );
+      }
+      int column = i % columns;
+      String targetName = presentationNames.get( i % presentationNames.size() );
+      String componentName = "Cell " + i;
+
+      LeanLabelComponent leanLabelComponent = new LeanLabelComponent();
+      leanLabelComponent.setLabel( targetName + " #" + i );
+      leanLabelComponent.setDefaultFont( new LeanFont( "Arial", "8", false, false ) );
+      leanLabelComponent.setHorizontalAlignment( LeanHorizontalAlignment.LEFT );
+      leanLabelComponent.setVerticalAlignment( LeanVerticalAlignment.TOP );
+
+      // Each label is in its column and below the label above it
+      //
+      LeanComponent labelComponent = new LeanComponent( componentName, leanLabelComponent );
+      LeanLayout labelLayout = new LeanLayout();
+      labelLayout.setLeft( new LeanAttachment( null, column * 100 / columns, 0, LeanAttachment.Alignment.LEFT ) );
+      if ( i % componentCount < columns ) {
+        labelLayout.setTop( new LeanAttachment( null, 0, 0, LeanAttachment.Alignment.TOP ) );
+      } else {
+        labelLayout.setTop( new LeanAttachment( "Cell " + ( i - columns ), 0, 4, LeanAttachment.Alignment.BOTTOM ) );
+      }
+      labelComponent.setLayout( labelLayout );
+      labelComponent.setSize( null );
+      page.getComponents().add( labelComponent );
+
+      LeanInteractionAction action = new LeanInteractionAction( LeanInteractionAction.ActionType.OpenPresentation, targetName );
+      action.getParameters().add( new LeanInteractionParameter( LeanInteractionParameter.ParameterSourceType.ItemValue, "SOURCE_VALUE" ) );
+      action.getParameters().add( new LeanInteractionParameter( LeanInteractionParameter.ParameterSourceType.PresentationName, "SOURCE_PRESENTATION" ) );
+      presentation.getInteractions().add( new LeanInteraction(
+        LeanInteractionMethod.SingleClick,
+        new LeanInteractionLocation( componentName, "LeanLabelComponent", null, null ),
+        action
+      ) );
+    }
+
+    LeanTheme theme = LeanTheme.getDefault();
+    presentation.getThemes().add( theme );
+    presentation.setDefaultThemeName( theme.getName() );
+
+    serializer.save( presentation );
+  }
+
+  /**
+   * Generate a presentation showing its name and the parameters it was opened with, linking back to the dashboard.
+   *
+   * @param metadataProvider The metadata provider to save the presentation in
+   * @param dashboardName    The name of the dashboard to link back to
+   * @param presentationName The name of the presentation
+   * @throws HopException In case the presentation can't be saved
+   */
+  public static void generateLabelPresentation( IHopMetadataProvider metadataProvider, String dashboardName, String presentationName ) throws HopException {
     // Add a simple presentation to the metadata
     //
     IHopMetadataSerializer<LeanPresentation> serializer = metadataProvider.getSerializer( LeanPresentation.class );
@@ -0,0 +1,172 @@
+package org.lean.viewer.swt;
+
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.Rectangle;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded cache of rasterized page tiles.
+ * The tiles are SWT images so this cache must only be used on the display thread. Images are created through and
+ * disposed with the resource registry when they're evicted, least recently used first, or when the cache is cleared.
+ */
+public class TileCache {
+
+  public static final int TILE_SIZE = 256;
+  public static final int DEFAULT_MAX_TILES = 96;
+
+  private final SwtResourceRegistry resources;
+  private final Map<TileKey, Image> tiles;
+  private int maxTiles;
+
+  private long hits;
+  private long misses;
+
+  public TileCache( SwtResourceRegistry resources ) {
+    this.resources = resources;
+    this.tiles = new LinkedHashMap<>( 64, 0.75f, true );
+    this.maxTiles = DEFAULT_MAX_TILES;
+  }
+
+  /**
+   * @param key The tile to look up
+   * @return The image of the tile or null if it's not cached
+   */
+  public Image get( TileKey key ) {
+    Image image = tiles.get( key );
+    if ( image == null || image.isDisposed() ) {
+      misses++;
+      return null;
+    }
+    hits++;
+    return image;
+  }
+
+  /**
+   * Add a tile, evicting the least recently used tiles if there are too many.
+   *
+   * @param key   The tile
+   * @param image The image of the tile, created with the resource registry and now owned by the cache
+   */
+  public void put( TileKey key, Image image ) {
+    Image previous = tiles.put( key, image );
+    if ( previous != image ) {
+      resources.disposeImage( previous );
+    }
+    evict();
+  }
+
+  /**
+   * Dispose the tiles of a page.
+   *
+   * @param page The page to forget the tiles of
+   */
+  public void removePage( RenderedPage page ) {
+    List<TileKey> keys = new ArrayList<>();
+    for ( TileKey key : tiles.keySet() ) {
+      if ( key.getPage() == page ) {
+        keys.add( key );
+      }
+    }
+    for ( TileKey key : keys ) {
+      resources.disposeImage( tiles.remove( key ) );
+    }
+  }
+
+  /**
+   * Hand the tiles of a page over to a page derived from it, except for the tiles overlapping with the damaged areas.
+   *
+   * @param base   The page the tiles were rasterized for
+   * @param page   The page derived from it
+   * @param damage The areas in which the pages differ, in page coordinates
+   * @return The number of tiles handed over
+   */
+  public int inherit( RenderedPage base, RenderedPage page, PageDamage damage ) {
+    List<TileKey> keys = new ArrayList<>();
+    for ( TileKey key : tiles.keySet() ) {
+      if ( key.getPage() == base ) {
+        keys.add( key );
+      }
+    }
+    int inherited = 0;
+    for ( TileKey key : keys ) {
+      Image image = tiles.remove( key );
+      double scale = key.getScale();
+      int x = (int) Math.floor( key.getColumn() * TILE_SIZE / scale );
+      int y = (int) Math.floor( key.getRow() * TILE_SIZE / scale );
+      int size = (int) Math.ceil( TILE_SIZE / scale ) + 1;
+      if ( damage.intersects( new Rectangle( x, y, size, size ) ) ) {
+        resources.disposeImage( image );
+      } else {
+        tiles.put( new TileKey( page, key.getScaleKey(), key.getDeviceZoom(), key.getColumn(), key.getRow() ), image );
+        inherited++;
+      }
+    }
+    return inherited;
+  }
+
+  /**
+   * Dispose all tiles
+   */
+  public void clear() {
+    for ( Image image : tiles.values() ) {
+      resources.disposeImage( image );
+    }
+    tiles.clear();
+  }
+
+  private void evict() {
+    Iterator<Image> iterator = tiles.values().iterator();
+    while ( tiles.size() > maxTiles && iterator.hasNext() ) {
+      Image image = iterator.next();
+      iterator.remove();
+      resources.disposeImage( image );
+    }
+  }
+
+  /**
+   * @return The number of cached tiles
+   */
+  public int size() {
+    return tiles.size();
+  }
+
+  /**
+   * Gets hits
+   *
+   * @return value of hits
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * Gets misses
+   *
+   * @return value of misses
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Gets maxTiles
+   *
+   * @return value of maxTiles
+   */
+  public int getMaxTiles() {
+    return maxTiles;
+  }
+
+  /**
+   * @param maxTiles The maximum number of tiles to keep
+   */
+  public void setMaxTiles( int maxTiles ) {
+    this.maxTiles = maxTiles;
+    evict();
+  }
+}
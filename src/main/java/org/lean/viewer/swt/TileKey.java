@@ -0,0 +1,111 @@
+package org.lean.viewer.swt;
+
+import org.eclipse.swt.graphics.Rectangle;
+
+import java.util.Objects;
+
+/**
+ * Identifies a tile of a page rasterized at a certain scale for a certain monitor zoom.
+ * The scale is expressed in thousandths so that it can be compared exactly. Tiles are laid out in points, on a monitor
+ * with a zoom above 100% they hold proportionally more pixels.
+ */
+public class TileKey {
+
+  private final RenderedPage page;
+  private final int scaleKey;
+  private final int deviceZoom;
+  private final int column;
+  private final int row;
+
+  public TileKey( RenderedPage page, int scaleKey, int deviceZoom, int column, int row ) {
+    this.page = page;
+    this.scaleKey = scaleKey;
+    this.deviceZoom = deviceZoom;
+    this.column = column;
+    this.row = row;
+  }
+
+  @Override public boolean equals( Object o ) {
+    if ( this == o ) {
+      return true;
+    }
+    if ( o == null || getClass() != o.getClass() ) {
+      return false;
+    }
+    TileKey tileKey = (TileKey) o;
+    return page == tileKey.page && scaleKey == tileKey.scaleKey && deviceZoom == tileKey.deviceZoom && column == tileKey.column && row == tileKey.row;
+  }
+
+  @Override public int hashCode() {
+    return Objects.hash( System.identityHashCode( page ), scaleKey, deviceZoom, column, row );
+  }
+
+  /**
+   * @return The scale the tile is rasterized at, 1.0 being the size of the page
+   */
+  public double getScale() {
+    return scaleKey / 1000.0;
+  }
+
+  /**
+   * @return The number of pixels per page point in the raster of the tile
+   */
+  public double getPixelScale() {
+    return getScale() * deviceZoom / 100.0;
+  }
+
+  /**
+   * @param tile The area of the tile in points
+   * @return The area of the tile in the pixels of its raster
+   */
+  public Rectangle toPixels( Rectangle tile ) {
+    double factor = deviceZoom / 100.0;
+    return new Rectangle( (int) Math.floor( tile.x * factor ), (int) Math.floor( tile.y * factor ),
+      (int) Math.ceil( tile.width * factor ), (int) Math.ceil( tile.height * factor ) );
+  }
+
+  /**
+   * Gets page
+   *
+   * @return value of page
+   */
+  public RenderedPage getPage() {
+    return page;
+  }
+
+  /**
+   * Gets scaleKey
+   *
+   * @return value of scaleKey
+   */
+  public int getScaleKey() {
+    return scaleKey;
+  }
+
+  /**
+   * Gets deviceZoom
+   *
+   * @return value of deviceZoom
+   */
+  public int getDeviceZoom() {
+    return deviceZoom;
+  }
+
+  /**
+   * Gets column
+   *
+   * @return value of column
+   */
+  public int getColumn() {
+    return column;
+  }
+
+  /**
+   * Gets row
+   *
+   * @return value of row
+   */
+  public int getRow() {
+    return row;
+  }
+}
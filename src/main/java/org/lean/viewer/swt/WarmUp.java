@@ -0,0 +1,194 @@
+package org.lean.viewer.swt;
+
+import org.lean.core.draw.DrawnItem;
+import org.lean.core.exception.LeanException;
+import org.lean.presentation.LeanPresentation;
+import org.lean.presentation.interaction.LeanInteraction;
+import org.lean.presentation.interaction.LeanInteractionAction;
+import org.lean.presentation.variable.LeanParameter;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Renders the presentations which can be opened from a page ahead of time, one after the other on the low priority
+ * executor of the render service, so that the first click on them is instant.
+ * The renders end up in the presentation cache. Warming up stops when the renders use up the memory budget.
+ * It can be paused while the user is busy: the render in progress carries on but the next one isn't started until
+ * warming up is resumed.
+ */
+public class WarmUp {
+
+  public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+  private final PresentationRenderService renderService;
+  private final Deque<Map.Entry<PresentationKey, List<LeanParameter>>> targets;
+  private final long maxBytes;
+
+  private long usedBytes;
+  private int renderedCount;
+  private boolean cancelled;
+  private boolean paused;
+  private CompletableFuture<RenderedPresentation> current;
+
+  /**
+   * @param renderService The render service to render with
+   * @param targets       The presentations to render with their parameters, in the order to render them
+   * @param maxBytes      The memory budget of the renders
+   */
+  public WarmUp( PresentationRenderService renderService, Map<PresentationKey, List<LeanParameter>> targets, long maxBytes ) {
+    this.renderService = renderService;
+    this.targets = new ArrayDeque<>( targets.entrySet() );
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Find the presentations which can be opened from a page by clicking on its items, with the parameter values that
+   * clicking each item passes on, in drawing order.
+   *
+   * @param presentation The presentation the page is part of
+   * @param page         The page to look at
+   * @param targets      The map to add the presentations and their parameters to
+   * @throws LeanException In case the interactions of the page can't be resolved
+   */
+  public static void findTargets( LeanPresentation presentation, RenderedPage page, Map<PresentationKey, List<LeanParameter>> targets ) throws LeanException {
+    InteractionMap interactionMap = page.getInteractionMap();
+    for ( DrawnItem drawnItem : page.getRenderPage().getDrawnItems() ) {
+      if ( !interactionMap.hasInteraction( drawnItem ) ) {
+        continue;
+      }
+      for ( LeanInteraction interaction : new LeanInteraction[] { interactionMap.getClickInteraction( drawnItem ),
+        interactionMap.getDoubleClickInteraction( drawnItem ) } ) {
+        LeanInteractionAction action = InteractionMap.findOpenPresentationAction( interaction );
+        if ( action != null ) {
+          List<LeanParameter> parameters = InteractionMap.resolveParameters( presentation, action, drawnItem );
+          targets.putIfAbsent( new PresentationKey( action.getObjectName(), parameters ), parameters );
+        }
+      }
+    }
+  }
+
+  /**
+   * @return A new map to collect targets in, keeping them in the order they're added
+   */
+  public static Map<PresentationKey, List<LeanParameter>> newTargets() {
+    return new LinkedHashMap<>();
+  }
+
+  /**
+   * Start rendering the targets
+   */
+  public void start() {
+    next();
+  }
+
+  private void next() {
+    while ( true ) {
+      CompletableFuture<RenderedPresentation> future;
+      synchronized ( this ) {
+        if ( cancelled || paused || usedBytes >= maxBytes || targets.isEmpty() ) {
+          current = null;
+          return;
+        }
+        Map.Entry<PresentationKey, List<LeanParameter>> target = targets.poll();
+        future = renderService.submitWarmUp( target.getKey().getPresentationName(), target.getValue() );
+        current = future;
+      }
+      if ( !future.isDone() ) {
+        future.whenComplete( ( rendered, error ) -> {
+          finished( rendered );
+          next();
+        } );
+        return;
+      }
+
+      // Already cached, carry on with the next one right away
+      //
+      finished( future.isCompletedExceptionally() ? null : future.join() );
+    }
+  }
+
+  private synchronized void finished( RenderedPresentation rendered ) {
+    if ( rendered != null ) {
+      usedBytes += rendered.getEstimatedBytes();
+      renderedCount++;
+    }
+  }
+
+  /**
+   * Don't start any more renders until {@link #resume()} is called
+   */
+  public synchronized void pause() {
+    paused = true;
+  }
+
+  /**
+   * Carry on with the next target after {@link #pause()}
+   */
+  public void resume() {
+    synchronized ( this ) {
+      if ( !paused ) {
+        return;
+      }
+      paused = false;
+      if ( current != null ) {
+        // The render in progress starts the next one when it's done
+        //
+        return;
+      }
+    }
+    next();
+  }
+
+  /**
+   * Stop rendering, the render in progress is abandoned unless somebody else is waiting for it
+   */
+  public void cancel() {
+    CompletableFuture<RenderedPresentation> future;
+    synchronized ( this ) {
+      cancelled = true;
+      targets.clear();
+      future = current;
+      current = null;
+    }
+    if ( future != null ) {
+      future.cancel( true );
+    }
+  }
+
+  /**
+   * @return true if there is nothing left to render or warming up was cancelled
+   */
+  public synchronized boolean isDone() {
+    return cancelled || current == null && ( targets.isEmpty() || usedBytes >= maxBytes );
+  }
+
+  /**
+   * Gets usedBytes
+   *
+   * @return value of usedBytes
+   */
+  public synchronized long getUsedBytes() {
+    return usedBytes;
+  }
+
+  /**
+   * Gets renderedCount
+   *
+   * @return value of renderedCount
+   */
+  public synchronized int getRenderedCount() {
+    return renderedCount;
+  }
+
+  /**
+   * @return The number of targets which weren't rendered (yet)
+   */
+  public synchronized int getRemainingCount() {
+    return targets.size();
+  }
+}
@@ -0,0 +1,21 @@
+package org.lean.viewer.swt;
+
+/**
+ * How the viewer determines the zoom level of the page
+ */
+public enum ZoomMode {
+  /**
+   * Scale the page so that its width fits the viewer
+   */
+  FIT_WIDTH,
+
+  /**
+   * Scale the page so that it's completely visible in the viewer
+   */
+  FIT_PAGE,
+
+  /**
+   * Use the zoom level set explicitly
+   */
+  CUSTOM,
+}
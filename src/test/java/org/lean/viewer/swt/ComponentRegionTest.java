@@ -0,0 +1,73 @@
+package org.lean.viewer.swt;
+
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.PaletteData;
+import org.eclipse.swt.graphics.Rectangle;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class ComponentRegionTest {
+
+  private static final int WHITE = 0xFFFFFF;
+  private static final int RED = 0xFF0000;
+  private static final int BLUE = 0x0000FF;
+  private static final int GRAY = 0x808080;
+
+  @Test
+  public void testOverlappingBoundsKeepEarlierGroup() {
+    // Two groups with the same bounding box but components on opposite sides of the page
+    //
+    Rectangle bounds = new Rectangle( 0, 0, 20, 10 );
+    ComponentRegion left = new ComponentRegion( Collections.singletonList( "left" ), bounds,
+      Collections.singletonList( new Rectangle( 0, 0, 8, 10 ) ), filled( 20, 10, RED ) );
+    ComponentRegion right = new ComponentRegion( Collections.singletonList( "right" ), bounds,
+      Collections.singletonList( new Rectangle( 12, 0, 8, 10 ) ), filled( 20, 10, BLUE ) );
+
+    ImageData page = filled( 30, 20, GRAY );
+    left.copyTo( page );
+    right.copyTo( page );
+
+    assertEquals( RED, page.getPixel( 2, 5 ) );
+    assertEquals( BLUE, page.getPixel( 15, 5 ) );
+
+    // Within both bounding boxes but outside of any component
+    //
+    assertEquals( GRAY, page.getPixel( 10, 5 ) );
+
+    // Outside of the bounds altogether
+    //
+    assertEquals( GRAY, page.getPixel( 25, 15 ) );
+  }
+
+  @Test
+  public void testCopyOffsetRegion() {
+    Rectangle bounds = new Rectangle( 5, 4, 10, 6 );
+    ImageData raster = filled( 10, 6, WHITE );
+    raster.setPixel( 3, 2, RED );
+    ComponentRegion region = new ComponentRegion( Arrays.asList( "a", "b" ), bounds,
+      Arrays.asList( new Rectangle( 5, 4, 5, 6 ), new Rectangle( 12, 4, 3, 6 ) ), raster );
+
+    ImageData page = filled( 30, 20, GRAY );
+    region.copyTo( page );
+
+    assertEquals( RED, page.getPixel( 8, 6 ) );
+    assertEquals( WHITE, page.getPixel( 5, 4 ) );
+    assertEquals( WHITE, page.getPixel( 14, 9 ) );
+    assertEquals( GRAY, page.getPixel( 11, 6 ) );
+    assertEquals( GRAY, page.getPixel( 4, 4 ) );
+  }
+
+  private static ImageData filled( int width, int height, int pixel ) {
+    ImageData imageData = new ImageData( width, height, 32, new PaletteData( 0xFF0000, 0x00FF00, 0x0000FF ) );
+    for ( int y = 0; y < height; y++ ) {
+      for ( int x = 0; x < width; x++ ) {
+        imageData.setPixel( x, y, pixel );
+      }
+    }
+    return imageData;
+  }
+}
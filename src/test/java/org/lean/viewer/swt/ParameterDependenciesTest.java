@@ -0,0 +1,80 @@
+package org.lean.viewer.swt;
+
+import org.junit.Test;
+import org.lean.presentation.LeanPresentation;
+import org.lean.presentation.component.LeanComponent;
+import org.lean.presentation.component.types.label.LeanLabelComponent;
+import org.lean.presentation.page.LeanPage;
+import org.lean.presentation.variable.LeanParameter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ParameterDependenciesTest {
+
+  /**
+   * A component type which isn't registered as scannable: it could use any parameter, for example in a query
+   */
+  public static class UnknownComponent extends LeanLabelComponent {
+  }
+
+  @Test
+  public void testLabelOnlyDependsOnReferencedParameters() {
+    ParameterDependencies dependencies = new ParameterDependencies( createPresentation( "Title", new LeanLabelComponent(), "Sales in ${COUNTRY}" ) );
+
+    assertFalse( dependencies.isDependingOnAll( "Title" ) );
+    assertEquals( Collections.singleton( "COUNTRY" ), dependencies.getParameters( "Title" ) );
+    assertTrue( dependencies.isAffected( "Title", Collections.singleton( "COUNTRY" ) ) );
+    assertFalse( dependencies.isAffected( "Title", Collections.singleton( "YEAR" ) ) );
+  }
+
+  @Test
+  public void testUnknownComponentDependsOnAllParameters() {
+    // Doesn't refer to any parameter in its properties, but its type isn't understood
+    //
+    ParameterDependencies dependencies = new ParameterDependencies( createPresentation( "Chart", new UnknownComponent(), "Sales" ) );
+
+    assertTrue( dependencies.isDependingOnAll( "Chart" ) );
+    assertTrue( dependencies.isAffected( "Chart", Collections.singleton( "YEAR" ) ) );
+    assertFalse( dependencies.isAffected( "Chart", Collections.emptySet() ) );
+  }
+
+  @Test
+  public void testUnknownComponentName() {
+    ParameterDependencies dependencies = new ParameterDependencies( createPresentation( "Title", new LeanLabelComponent(), "Sales" ) );
+
+    assertTrue( dependencies.isAffected( "Missing", Collections.singleton( "YEAR" ) ) );
+  }
+
+  @Test
+  public void testFindChangedParameters() {
+    Set<String> changed = ParameterDependencies.findChangedParameters(
+      Arrays.asList( parameter( "COUNTRY", "BE" ), parameter( "YEAR", "2020" ), parameter( "REMOVED", "x" ) ),
+      Arrays.asList( parameter( "COUNTRY", "BE" ), parameter( "YEAR", "2021" ), parameter( "ADDED", "y" ) ) );
+
+    assertEquals( 3, changed.size() );
+    assertTrue( changed.containsAll( Arrays.asList( "YEAR", "REMOVED", "ADDED" ) ) );
+  }
+
+  private static LeanPresentation createPresentation( String componentName, LeanLabelComponent label, String text ) {
+    label.setLabel( text );
+    LeanPresentation presentation = new LeanPresentation();
+    presentation.setName( "Test" );
+    LeanPage page = new LeanPage( 1, 794, 1123, 25, 25, 25, 25 );
+    page.getComponents().add( new LeanComponent( componentName, label ) );
+    presentation.getPages().add( page );
+    return presentation;
+  }
+
+  private static LeanParameter parameter( String name, String value ) {
+    LeanParameter parameter = new LeanParameter();
+    parameter.setParameterName( name );
+    parameter.setParameterValue( value );
+    return parameter;
+  }
+}